@@ -0,0 +1,238 @@
+package chess;
+
+/**
+ * Attacks holds the precomputed attack tables for every piece type, built once when the class is loaded.
+ * Knights, kings and pawns use one bitboard per square. Rooks and bishops use magic bitboards: the blockers
+ * on the relevant tiles of a square are multiplied by a magic number whose top bits index that square's
+ * slice of a shared attack table, so a sliding attack is a single table lookup.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public final class Attacks {
+	/**
+	 * Magic multipliers for rooks, found offline for this square layout.
+	 */
+	private static final long[] ROOK_MAGICS = {
+			0x1080004008801020L, 0x0840092002C03000L, 0x1900200010400900L, 0x0880100008000480L,
+			0x4200100420080200L, 0x8100020100080400L, 0x0200040110886200L, 0x0200008040220411L,
+			0x0404800084400220L, 0x0000401000402000L, 0x0086001081220440L, 0x0408800800100280L,
+			0x000A001201040820L, 0x8848800200840080L, 0x4001000100040200L, 0x0442000102105084L,
+			0x9080010020804100L, 0x0040404000201009L, 0x0000808010002009L, 0x2200090021D00100L,
+			0x0008008008040080L, 0x0004004002010040L, 0x0011040008015042L, 0x00000A0001768104L,
+			0x0000800080204009L, 0x2010004140002001L, 0x9800200280100080L, 0x1000100080080080L,
+			0x0442000A00049020L, 0x2100040080020080L, 0x0800120400900148L, 0x0010040A00128541L,
+			0x2800804000800030L, 0x1010002000400041L, 0x4000200011004100L, 0x0610008410800800L,
+			0x0400802402800800L, 0xC100020080800400L, 0x0002000802000401L, 0x0182085882000401L,
+			0x0220204000808000L, 0x2860100040024022L, 0x0001002004110040L, 0x99101042000A0020L,
+			0x0004080004008080L, 0x0010040002008080L, 0x2012004881020004L, 0x8300842444820011L,
+			0x0088403882010200L, 0x0820400080210100L, 0x0110910040A00300L, 0x0801100280080480L,
+			0x0242009008200600L, 0x1002000489500200L, 0x0040800200010080L, 0x0091800041000080L,
+			0x0000209300488001L, 0x04C1002414824001L, 0x020020000B001041L, 0x7000100004200901L,
+			0x8002002004100802L, 0x30010002084C0007L, 0x0888221800813004L, 0x4000002840840112L
+	};
+
+	/**
+	 * Magic multipliers for bishops, found offline for this square layout.
+	 */
+	private static final long[] BISHOP_MAGICS = {
+			0xA010041108003100L, 0x006082020A002900L, 0x6810010619200000L, 0x08281A0520000408L,
+			0x0001104001000400L, 0x0018901008048400L, 0x00040A0210245280L, 0x000200210808A402L,
+			0x9140048410821200L, 0x0800091010820041L, 0x20504804832202C0L, 0x0100091401081000L,
+			0x8021011140000012L, 0x0810020804450400L, 0x208B0542109008A2L, 0x0080084A08040204L,
+			0x0040E2A80811244CL, 0x2505022008008108L, 0x0430220100420040L, 0x010A040420220040L,
+			0x1105000290400000L, 0x0093001200822120L, 0x4000A62048043004L, 0x280120048A015004L,
+			0x006090002A020814L, 0x44042000240800D0L, 0x01102800040A4400L, 0x1004080080220040L,
+			0x0001001011004024L, 0x0010044000805040L, 0x0914041200820100L, 0x0004821012821480L,
+			0x0024040500C05021L, 0x0088611002080200L, 0x0116080A00040020L, 0x4000020080080080L,
+			0x2450450140840040L, 0x0000880201484100L, 0x0222020404020092L, 0x8081110600002E00L,
+			0x2842101105000801L, 0x1100809008001025L, 0x00020202221C0400L, 0x0422014022009020L,
+			0x0210046102100C00L, 0xC004008082029102L, 0x00AA461801101200L, 0x0404080080201108L,
+			0x020542108C205002L, 0x0410544804100100L, 0x0040910841100000L, 0x0400200042021100L,
+			0x00004204850400C0L, 0x0200100410A42102L, 0x1040020801210102L, 0x0805040410420000L,
+			0x2884804130100200L, 0x800C262201242000L, 0x1058000194108800L, 0x0014221054420204L,
+			0x0104000012A02200L, 0x0200881003300100L, 0x0140400202840100L, 0x0402020801010201L
+	};
+
+	/** Knight attacks from each square. */
+	private static final long[] KNIGHT = new long[64];
+
+	/** King attacks from each square. */
+	private static final long[] KING = new long[64];
+
+	/** Pawn attacks from each square, indexed by color * 64 + square. */
+	private static final long[] PAWN = new long[128];
+
+	/** Tiles whose occupancy affects a rook on each square (the edges are left out). */
+	private static final long[] ROOK_MASKS = new long[64];
+
+	/** Tiles whose occupancy affects a bishop on each square (the edges are left out). */
+	private static final long[] BISHOP_MASKS = new long[64];
+
+	/** Right shift applied to the magic product of each square (64 minus the number of mask bits). */
+	private static final int[] ROOK_SHIFTS = new int[64];
+	private static final int[] BISHOP_SHIFTS = new int[64];
+
+	/** Where each square's slice starts in the attack table. */
+	private static final int[] ROOK_OFFSETS = new int[64];
+	private static final int[] BISHOP_OFFSETS = new int[64];
+
+	/** Rook attacks for every square and blocker subset. */
+	private static final long[] ROOK_TABLE;
+
+	/** Bishop attacks for every square and blocker subset. */
+	private static final long[] BISHOP_TABLE;
+
+	/** Tiles strictly between two squares on the same row, column or diagonal, indexed by a * 64 + b. */
+	private static final long[] BETWEEN = new long[64 * 64];
+
+	static {
+		for (int sq = 0; sq < 64; sq++) {
+			long b = Bitboards.bit(sq);
+			KNIGHT[sq] = Bitboards.knightAttacks(b);
+			KING[sq] = Bitboards.kingAttacks(b);
+			PAWN[sq] = Bitboards.pawnAttacks(b, Board.WHITE);
+			PAWN[64 + sq] = Bitboards.pawnAttacks(b, Board.BLACK);
+		}
+		ROOK_TABLE = initSliders(true, ROOK_MASKS, ROOK_SHIFTS, ROOK_OFFSETS, ROOK_MAGICS);
+		BISHOP_TABLE = initSliders(false, BISHOP_MASKS, BISHOP_SHIFTS, BISHOP_OFFSETS, BISHOP_MAGICS);
+		for (int a = 0; a < 64; a++) {
+			for (int b = 0; b < 64; b++) {
+				if ((rook(a, 0) & Bitboards.bit(b)) != 0) {
+					BETWEEN[a * 64 + b] = rook(a, Bitboards.bit(b)) & rook(b, Bitboards.bit(a));
+				} else if ((bishop(a, 0) & Bitboards.bit(b)) != 0) {
+					BETWEEN[a * 64 + b] = bishop(a, Bitboards.bit(b)) & bishop(b, Bitboards.bit(a));
+				}
+			}
+		}
+	}
+
+	private Attacks() {
+	}
+
+	/**
+	 * Fills in the masks, shifts and offsets of one slider type and builds its attack table by enumerating
+	 * every blocker subset of every square.
+	 *
+	 * @param rook true for rooks, false for bishops
+	 * @param masks relevant occupancy mask per square (filled in)
+	 * @param shifts shift per square (filled in)
+	 * @param offsets table offset per square (filled in)
+	 * @param magics magic multiplier per square
+	 * @return the attack table
+	 */
+	private static long[] initSliders(boolean rook, long[] masks, int[] shifts, int[] offsets, long[] magics) {
+		int size = 0;
+		for (int sq = 0; sq < 64; sq++) {
+			int r = Bitboards.row(sq);
+			int c = Bitboards.col(sq);
+			long edges = 0;
+			if (r != 0) edges |= Bitboards.RANK_8;
+			if (r != 7) edges |= Bitboards.RANK_1;
+			if (c != 0) edges |= Bitboards.FILE_A;
+			if (c != 7) edges |= Bitboards.FILE_H;
+			masks[sq] = slidingAttacks(rook, sq, 0) & ~edges;
+			shifts[sq] = 64 - Long.bitCount(masks[sq]);
+			offsets[sq] = size;
+			size += 1 << Long.bitCount(masks[sq]);
+		}
+		long[] table = new long[size];
+		for (int sq = 0; sq < 64; sq++) {
+			long mask = masks[sq];
+			long blockers = 0;
+			do { // every subset of the mask (Carry-Rippler)
+				int index = offsets[sq] + (int) ((blockers * magics[sq]) >>> shifts[sq]);
+				table[index] = slidingAttacks(rook, sq, blockers);
+				blockers = (blockers - mask) & mask;
+			} while (blockers != 0);
+		}
+		return table;
+	}
+
+	/**
+	 * Computes slider attacks the slow way, used to build the tables.
+	 *
+	 * @param rook true for rooks, false for bishops
+	 * @param sq square of the slider
+	 * @param occ bitboard of occupied tiles
+	 * @return bitboard of attacked tiles
+	 */
+	private static long slidingAttacks(boolean rook, int sq, long occ) {
+		return rook ? Bitboards.rookAttacks(Bitboards.bit(sq), ~occ) : Bitboards.bishopAttacks(Bitboards.bit(sq), ~occ);
+	}
+
+	/**
+	 * Tiles attacked by a knight.
+	 *
+	 * @param sq square of the knight
+	 * @return bitboard of attacked tiles
+	 */
+	public static long knight(int sq) {
+		return KNIGHT[sq];
+	}
+
+	/**
+	 * Tiles attacked by a king.
+	 *
+	 * @param sq square of the king
+	 * @return bitboard of attacked tiles
+	 */
+	public static long king(int sq) {
+		return KING[sq];
+	}
+
+	/**
+	 * Tiles attacked diagonally by a pawn.
+	 *
+	 * @param color color of the pawn (Board.WHITE or Board.BLACK)
+	 * @param sq square of the pawn
+	 * @return bitboard of attacked tiles
+	 */
+	public static long pawn(int color, int sq) {
+		return PAWN[(color << 6) | sq];
+	}
+
+	/**
+	 * Tiles attacked by a rook.
+	 *
+	 * @param sq square of the rook
+	 * @param occ bitboard of occupied tiles
+	 * @return bitboard of attacked tiles, including the first blocker in each direction
+	 */
+	public static long rook(int sq, long occ) {
+		return ROOK_TABLE[ROOK_OFFSETS[sq] + (int) (((occ & ROOK_MASKS[sq]) * ROOK_MAGICS[sq]) >>> ROOK_SHIFTS[sq])];
+	}
+
+	/**
+	 * Tiles attacked by a bishop.
+	 *
+	 * @param sq square of the bishop
+	 * @param occ bitboard of occupied tiles
+	 * @return bitboard of attacked tiles, including the first blocker in each direction
+	 */
+	public static long bishop(int sq, long occ) {
+		return BISHOP_TABLE[BISHOP_OFFSETS[sq] + (int) (((occ & BISHOP_MASKS[sq]) * BISHOP_MAGICS[sq]) >>> BISHOP_SHIFTS[sq])];
+	}
+
+	/**
+	 * Tiles strictly between two squares.
+	 *
+	 * @param a first square
+	 * @param b second square
+	 * @return bitboard of the tiles between them, empty if they are not on a shared row, column or diagonal
+	 */
+	public static long between(int a, int b) {
+		return BETWEEN[(a << 6) | b];
+	}
+
+	/**
+	 * Tiles attacked by a queen.
+	 *
+	 * @param sq square of the queen
+	 * @param occ bitboard of occupied tiles
+	 * @return bitboard of attacked tiles, including the first blocker in each direction
+	 */
+	public static long queen(int sq, long occ) {
+		return rook(sq, occ) | bishop(sq, occ);
+	}
+}
@@ -1,7 +1,5 @@
 package chess;
 
-import java.util.List;
-
 /**
  * Implementation of Piece class representing the bishop.
  * 
@@ -12,15 +10,16 @@ public class Bishop extends Piece {
 	/**
 	 * Constructs a new bishop (name = "B").
 	 * 
-	 * @param color what color the piece is (usually "Black" or "White")
+	 * @param color what color the piece is (Board.WHITE or Board.BLACK)
 	 */
-	public Bishop(String color) {
-		super(color, "B");
+	Bishop(int color) {
+		super(color, Board.BISHOP);
 	}
 
 	@Override
-	public List<Coords> getPossibleMoves(Board b, int r, int c) {
-		return Piece.getValidDiagonalMoves(b, this, r, c);
+	public void generateMoves(Board b, int sq, MoveList list, long targets) {
+		long attacks = Attacks.bishop(sq, b.getOccupancy());
+		Piece.addMoves(b, sq, attacks & targets & ~b.getColorBitboard(this.getColorIndex()), list);
 	}
 
 	@Override
@@ -0,0 +1,185 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bitboards holds the constants and helper functions for 64-bit boards. Bit (r * 8 + c) of a bitboard
+ * represents the tile at row r and column c, so a8 is bit 0 and h1 is bit 63.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public final class Bitboards {
+	/** All tiles in column a. */
+	public static final long FILE_A = 0x0101010101010101L;
+
+	/** All tiles in column b. */
+	public static final long FILE_B = FILE_A << 1;
+
+	/** All tiles in column g. */
+	public static final long FILE_G = FILE_A << 6;
+
+	/** All tiles in column h. */
+	public static final long FILE_H = FILE_A << 7;
+
+	/** All tiles in row 0 (rank 8). */
+	public static final long RANK_8 = 0xFFL;
+
+	/** All tiles in row 7 (rank 1). */
+	public static final long RANK_1 = RANK_8 << 56;
+
+	private Bitboards() {
+	}
+
+	/**
+	 * Converts a row and column into a square index.
+	 *
+	 * @param r row
+	 * @param c column
+	 * @return square index from 0 (a8) to 63 (h1)
+	 */
+	public static int square(int r, int c) {
+		return (r << 3) | c;
+	}
+
+	/**
+	 * Gets the row of a square index.
+	 *
+	 * @param sq square index
+	 * @return row from 0 to 7
+	 */
+	public static int row(int sq) {
+		return sq >>> 3;
+	}
+
+	/**
+	 * Gets the column of a square index.
+	 *
+	 * @param sq square index
+	 * @return column from 0 to 7
+	 */
+	public static int col(int sq) {
+		return sq & 7;
+	}
+
+	/**
+	 * Gets the bitboard with only the specified square set.
+	 *
+	 * @param sq square index
+	 * @return bitboard with one bit set
+	 */
+	public static long bit(int sq) {
+		return 1L << sq;
+	}
+
+	/**
+	 * Tiles attacked by all of the knights in the given set.
+	 *
+	 * @param knights bitboard of knights
+	 * @return bitboard of attacked tiles
+	 */
+	public static long knightAttacks(long knights) {
+		long l1 = (knights >>> 1) & ~FILE_H;
+		long l2 = (knights >>> 2) & ~(FILE_G | FILE_H);
+		long r1 = (knights << 1) & ~FILE_A;
+		long r2 = (knights << 2) & ~(FILE_A | FILE_B);
+		long h1 = l1 | r1;
+		long h2 = l2 | r2;
+		return (h1 << 16) | (h1 >>> 16) | (h2 << 8) | (h2 >>> 8);
+	}
+
+	/**
+	 * Tiles attacked by all of the kings in the given set.
+	 *
+	 * @param kings bitboard of kings
+	 * @return bitboard of attacked tiles
+	 */
+	public static long kingAttacks(long kings) {
+		long attacks = ((kings << 1) & ~FILE_A) | ((kings >>> 1) & ~FILE_H);
+		kings |= attacks;
+		return attacks | (kings << 8) | (kings >>> 8);
+	}
+
+	/**
+	 * Tiles attacked diagonally by all of the pawns in the given set.
+	 *
+	 * @param pawns bitboard of pawns
+	 * @param color color of the pawns (Board.WHITE or Board.BLACK)
+	 * @return bitboard of attacked tiles
+	 */
+	public static long pawnAttacks(long pawns, int color) {
+		long forward = color == Board.WHITE ? pawns >>> 8 : pawns << 8;
+		return ((forward << 1) & ~FILE_A) | ((forward >>> 1) & ~FILE_H);
+	}
+
+	/**
+	 * Tiles attacked horizontally and vertically by all of the sliders in the given set.
+	 *
+	 * @param rooks bitboard of rooks (and queens)
+	 * @param empty bitboard of empty tiles
+	 * @return bitboard of attacked tiles, including the first blocker in each direction
+	 */
+	public static long rookAttacks(long rooks, long empty) {
+		return slide(rooks, empty, -8, -1L) | slide(rooks, empty, 8, -1L)
+				| slide(rooks, empty, 1, ~FILE_A) | slide(rooks, empty, -1, ~FILE_H);
+	}
+
+	/**
+	 * Tiles attacked diagonally by all of the sliders in the given set.
+	 *
+	 * @param bishops bitboard of bishops (and queens)
+	 * @param empty bitboard of empty tiles
+	 * @return bitboard of attacked tiles, including the first blocker in each direction
+	 */
+	public static long bishopAttacks(long bishops, long empty) {
+		return slide(bishops, empty, -7, ~FILE_A) | slide(bishops, empty, -9, ~FILE_H)
+				| slide(bishops, empty, 9, ~FILE_A) | slide(bishops, empty, 7, ~FILE_H);
+	}
+
+	/**
+	 * Kogge-Stone occluded fill of the generators in one direction, shifted once more to get the attacks.
+	 *
+	 * @param gen bitboard of sliding pieces
+	 * @param empty bitboard of empty tiles
+	 * @param shift how far one step moves a bit (positive is towards h1)
+	 * @param mask tiles which can be entered in this direction without wrapping around the board
+	 * @return bitboard of attacked tiles in this direction
+	 */
+	private static long slide(long gen, long empty, int shift, long mask) {
+		empty &= mask;
+		gen |= empty & shift(gen, shift);
+		empty &= shift(empty, shift);
+		gen |= empty & shift(gen, 2 * shift);
+		empty &= shift(empty, 2 * shift);
+		gen |= empty & shift(gen, 4 * shift);
+		return shift(gen, shift) & mask;
+	}
+
+	/**
+	 * Shifts a bitboard left for positive amounts and right for negative amounts.
+	 *
+	 * @param b bitboard
+	 * @param shift amount to shift
+	 * @return shifted bitboard
+	 */
+	private static long shift(long b, int shift) {
+		return shift > 0 ? b << shift : b >>> -shift;
+	}
+
+	/**
+	 * Converts a bitboard into a list of coordinates.
+	 *
+	 * @param b bitboard
+	 * @return list of the r and c of every set bit
+	 */
+	public static List<Piece.Coords> toCoords(long b) {
+		ArrayList<Piece.Coords> arr = new ArrayList<>(Long.bitCount(b));
+		while (b != 0) {
+			int sq = Long.numberOfTrailingZeros(b);
+			arr.add(new Piece.Coords(row(sq), col(sq)));
+			b &= b - 1;
+		}
+		return arr;
+	}
+}
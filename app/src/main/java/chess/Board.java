@@ -1,10 +1,16 @@
 package chess;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Scanner;
 
 import chess.Piece.Coords;
+import chess.engine.Evaluation;
+import chess.engine.OpeningBook;
+import chess.engine.Search;
+import chess.engine.TimeManager;
+import chess.engine.TranspositionTable;
+import chess.tablebase.Tablebase;
 
 /**
  * Board holds the pieces and their state.
@@ -13,34 +19,192 @@ import chess.Piece.Coords;
  * @author Samuel Jefferson
  */
 public class Board {
+	/** Color index of white pieces in the bitboards. */
+	public static final int WHITE = 0;
+
+	/** Color index of black pieces in the bitboards. */
+	public static final int BLACK = 1;
+
+	/** Piece type indices in the bitboards (the bitboard of a piece is at color * 6 + type). */
+	public static final int PAWN = 0;
+	public static final int KNIGHT = 1;
+	public static final int BISHOP = 2;
+	public static final int ROOK = 3;
+	public static final int QUEEN = 4;
+	public static final int KING = 5;
+
+	/** Castling rights bits, white's are shifted left by 2 * color to get black's. */
+	public static final int WHITE_KINGSIDE = 1;
+	public static final int WHITE_QUEENSIDE = 2;
+	public static final int BLACK_KINGSIDE = 4;
+	public static final int BLACK_QUEENSIDE = 8;
+
+	/**
+	 * Score of being checkmated now, used by the search and the tablebases. Mate in n plies scores MATE - n
+	 * and being mated in n plies n - MATE, from the side to move's point of view.
+	 */
+	public static final int MATE = 30000;
+
+	/** Bits of a packed move record (see pack) holding the move. */
+	private static final long RECORD_MOVE_MASK = (1 << 19) - 1;
+
+	/** Piece values used by see, indexed by PAWN to KING. */
+	private static final int[] SEE_VALUES = {100, 300, 300, 500, 900, 10000};
+
+	/**
+	 * Castling rights which remain after a piece moves from or to each square (moving the king or a rook,
+	 * or capturing a rook on its starting square, loses the matching rights).
+	 */
+	private static final int[] CASTLING_MASKS = new int[64];
+
+	static {
+		for (int sq = 0; sq < 64; sq++) CASTLING_MASKS[sq] = 15;
+		CASTLING_MASKS[0] &= ~BLACK_QUEENSIDE;
+		CASTLING_MASKS[4] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+		CASTLING_MASKS[7] &= ~BLACK_KINGSIDE;
+		CASTLING_MASKS[56] &= ~WHITE_QUEENSIDE;
+		CASTLING_MASKS[60] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+		CASTLING_MASKS[63] &= ~WHITE_KINGSIDE;
+	}
+
+	/**
+	 * The 64 tiles of the board indexed by r * 8 + c, tiles are null if no piece is present at that r,c.
+	 */
+	private Piece[] squares = new Piece[64];
+
+	/**
+	 * One bitboard per piece type per color, indexed by color * 6 + type.
+	 */
+	private long[] pieceBitboards = new long[12];
+
+	/**
+	 * One bitboard per color of all tiles that color occupies.
+	 */
+	private long[] colorBitboards = new long[2];
+
+	/**
+	 * Bitboard of all occupied tiles.
+	 */
+	private long occupancy;
+
+	/**
+	 * Scratch space for generateLegalMoves, the tiles each pinned piece may move to indexed by square.
+	 * Only valid for squares in the pinned bitboard of the current call.
+	 */
+	private final long[] pinRays = new long[64];
+
+	/**
+	 * Scratch space for isLegal.
+	 */
+	private final MoveList scratch = new MoveList();
+
+	/**
+	 * Scratch space for takeTurn, the moves of the piece being moved and then the replies to the move.
+	 */
+	private final MoveList turnMoves = new MoveList();
+
+	/**
+	 * Undo record of the move being taken, undone or redone. Moves which stand are kept packed in
+	 * moveRecords, so one record serves every turn.
+	 */
+	private final UndoInfo turnUndo = new UndoInfo();
+
+	/**
+	 * Scratch space for see, the material balance after each capture of the exchange.
+	 */
+	private final int[] seeGains = new int[33];
+
+	/**
+	 * Square of each color's king indexed by color, -1 if that king is not on the board.
+	 */
+	private int[] kingSquares = {-1, -1};
+
+	/**
+	 * Castling rights still available (WHITE_KINGSIDE, WHITE_QUEENSIDE, BLACK_KINGSIDE, BLACK_QUEENSIDE).
+	 */
+	private int castlingRights;
+
+	/**
+	 * Square a pawn can capture en passant onto this turn, -1 if none.
+	 */
+	private int enPassantSquare = -1;
+
+	/**
+	 * Zobrist hash of the position, updated with every change to the board (see Zobrist).
+	 */
+	private long hash;
+
+	/**
+	 * Hashes of the positions before each move made with makeMove, oldest first, for finding repetitions.
+	 */
+	private long[] keyHistory = new long[256];
+
+	/**
+	 * Number of hashes in keyHistory.
+	 */
+	private int keyCount;
+
+	/**
+	 * Moves since the last capture or pawn move, for the fifty-move rule.
+	 */
+	private int halfmoveClock;
+
+	/**
+	 * Zobrist hash of the pawns alone, for the pawn structure table. Updated with every pawn put or removed.
+	 */
+	private long pawnHash;
+
+	/**
+	 * Middlegame and endgame scores of the pieces on the board (material plus square bonus, see
+	 * Evaluation), positive if white is better. Updated with every piece put or removed.
+	 */
+	private int middlegameScore;
+	private int endgameScore;
+
+	/**
+	 * Game phase of the pieces on the board, Evaluation.MAX_PHASE in the starting position.
+	 */
+	private int phase;
+
 	/**
-	 * An 8x8 grid of pieces, tiles are null if no piece is present at that r,c.
+	 * When true every move recomputes the hash from scratch and checks it against the incremental one.
 	 */
-	private Piece[][] board = new Piece[8][8];
+	private static boolean verifyHash = false;
 
 	/**
-	 * Whose turn it is; "White" is default first turn, "Black" is other turn.
+	 * Whose turn it is; WHITE is default first turn, BLACK is other turn.
 	 */
-	private String turn = "White";
+	private int sideToMove = WHITE;
 
 	/**
-	 * A list of pieces which have a delayed change (eg. pawn and FirstTurnAfterMove).
+	 * Undo records of the moves taken in the game, each packed into a long (see pack). They are also the
+	 * game's history, the encoded move is in the low bits. Records from ply up to redoLimit are of moves
+	 * which were undone and can be redone.
 	 */
-	private ArrayList<Piece> unsetFirstTurnAfterMoveList;
+	private long[] moveRecords = new long[256];
 
 	/**
-	 * Array of states the board was previously in.
+	 * Number of moves taken to reach the current position.
 	 */
-	private ArrayList<Piece[][]> boardHistory;
+	private int ply;
 
 	/**
-	 * Array of moves taken to get to current board state.
-	 * In form of "e2 e4\ne7 e5\n..." with 3rd column being promotion piece choice.
+	 * Number of records in moveRecords, including the ones which can be redone.
 	 */
-	private ArrayList<String> history;
+	private int redoLimit;
+
+	/** Time per move and hash table size of the engine behind makeMove(). */
+	private static final long ENGINE_MOVE_MILLIS = 200;
+	private static final int ENGINE_HASH_MB = 4;
+
+	/** Engine used by makeMove(), created on first use. */
+	private Search engine;
 
-	/** used to determine if a player can use their undo **/
-	private boolean canUndo = true;
+	/** Opening book makeMove() plays from before searching, null if none. */
+	private OpeningBook openingBook;
+
+	/** Endgame tables used by makeMove() and to find the result in takeTurn(), null if none. */
+	private Tablebase tablebase;
 
 	/**
 	 * Constructs a new board from given string.
@@ -63,24 +227,16 @@ public class Board {
 				sRemainder = sRemainder.substring(endBreak +
 						((spaceChar < newLineChar || newLineChar == -1) && spaceChar != -1 ? 1 : 0));
 				if (pieceStr.equals("##") || pieceStr.length() < 2) continue;
-				Piece p;
-				String color = pieceStr.charAt(0) == 'w' ? "White" : "Black";
-				char pieceChar = pieceStr.charAt(1);
-				if (pieceChar == 'R') p = new Rook(color);
-				else if (pieceChar == 'N') p = new Knight(color);
-				else if (pieceChar == 'B') p = new Bishop(color);
-				else if (pieceChar == 'Q') p = new Queen(color);
-				else if (pieceChar == 'K') p = new King(color);
-				else if (pieceChar == 'p') p = new Pawn(color);
-				else throw new Error("Invalid piece: " + pieceStr + " at (" + r + ", " + c + ")");
-				this.board[r][c] = p;
+				int color = pieceStr.charAt(0) == 'w' ? WHITE : BLACK;
+				int type = "pNBRQK".indexOf(pieceStr.charAt(1));
+				if (type == -1) throw new Error("Invalid piece: " + pieceStr + " at (" + r + ", " + c + ")");
+				this.put(Bitboards.square(r, c), Piece.of(color, type));
 			}
 			if (sRemainder.indexOf("\n") == -1 && sRemainder.length() == 0) break;
 			sRemainder = sRemainder.substring(sRemainder.indexOf("\n") + 1);
 		}
-		unsetFirstTurnAfterMoveList = new ArrayList<>();
-		boardHistory = new ArrayList<>();
-		history = new ArrayList<>();
+		this.initCastlingRights();
+		this.hash = this.computeHash();
 		/*
 		 * bR bN bB bQ bK bB bN bR 8
 		   bp bp bp bp bp bp bp bp 7
@@ -107,10 +263,33 @@ public class Board {
 	 * @param b 2d array of pieces
 	 */
 	public Board(Piece[][] b) {
-		this.board = b;
-		unsetFirstTurnAfterMoveList = new ArrayList<>();
-		boardHistory = new ArrayList<>();
-		history = new ArrayList<>();
+		this.load(b);
+		this.initCastlingRights();
+		this.hash = this.computeHash();
+	}
+
+	/**
+	 * Constructs a copy of a position, see copy().
+	 *
+	 * @param b board to copy
+	 */
+	private Board(Board b) {
+		this.squares = b.squares.clone();
+		this.pieceBitboards = b.pieceBitboards.clone();
+		this.colorBitboards = b.colorBitboards.clone();
+		this.occupancy = b.occupancy;
+		this.kingSquares = b.kingSquares.clone();
+		this.sideToMove = b.sideToMove;
+		this.castlingRights = b.castlingRights;
+		this.enPassantSquare = b.enPassantSquare;
+		this.hash = b.hash;
+		this.keyHistory = b.keyHistory.clone();
+		this.keyCount = b.keyCount;
+		this.halfmoveClock = b.halfmoveClock;
+		this.pawnHash = b.pawnHash;
+		this.middlegameScore = b.middlegameScore;
+		this.endgameScore = b.endgameScore;
+		this.phase = b.phase;
 	}
 
 	/**
@@ -120,10 +299,10 @@ public class Board {
 	 * @param c column of the piece
 	 * @param destR row of where the piece is going
 	 * @param destC column of where the piece is going
-	 * @return different messages for success or failed etc
+	 * @return different messages for success or failed etc, see message(MoveResult)
 	 */
 	public String takeTurn(int r, int c, int destR, int destC) {
-		return this.takeTurn(r, c, destR, destC, "Q");
+		return message(this.takeTurn(r, c, destR, destC, QUEEN));
 	}
 
 	/**
@@ -134,162 +313,264 @@ public class Board {
 	 * @param destR row of where the piece is going
 	 * @param destC column of where the piece is going
 	 * @param promoteTo what piece a pawn should promote to ("Q", "R", "B", "N")
-	 * @return different messages for success or failed etc
+	 * @return different messages for success or failed etc, see message(MoveResult)
 	 */
 	public String takeTurn(int r, int c, int destR, int destC, String promoteTo) {
+		return message(this.takeTurn(r, c, destR, destC, promotionType(promoteTo)));
+	}
+
+	/**
+	 * The message the String takeTurn methods return for a result. A move giving check returns "Success"
+	 * as it did before results were typed; only the typed takeTurn tells check apart.
+	 *
+	 * @param result result of the move
+	 * @return the result's message, "Success" for CHECK
+	 */
+	private static String message(MoveResult result) {
+		return result == MoveResult.CHECK ? MoveResult.SUCCESS.getMessage() : result.getMessage();
+	}
+
+	/**
+	 * Make the current player take their turn.
+	 *
+	 * @param r row of the piece
+	 * @param c column of the piece
+	 * @param destR row of where the piece is going
+	 * @param destC column of where the piece is going
+	 * @param promotion what piece a pawn should promote to, KNIGHT, BISHOP, ROOK or QUEEN
+	 * @return why the move was refused, or that it was made and whether it gave check or ended the game
+	 */
+	public MoveResult takeTurn(int r, int c, int destR, int destC, int promotion) {
 		Piece p;
-		Piece[][] prevBoard = this.copyBoard();
-		if (!Piece.validLoc(r, c)) return "Invalid location";
-		if (!Piece.validLoc(destR, destC)) return "Invalid destination";
-		if ((p = this.getTile(r, c)) == null) return "No piece specified";
-		if (p.getColor() != this.turn) return "Wrong piece color";
-		if (promoteTo == null || promoteTo.length() != 1 || ("QRBN").indexOf(promoteTo) == -1) return "Invalid promoteTo";
-		Piece.Coords captureCoords;
-		if ((captureCoords = p.isValidMove(this, r, c, destR, destC)) == null) return "Invalid move";
-		if (Piece.validLoc(captureCoords.getR(), captureCoords.getC())) {
-			// captured a piece?
-		} else if (captureCoords.getR() == -1 && captureCoords.getC() >= 0) { // castle
-			// check if in check if moved one in direction
-			int midC = (c + destC) / 2;
-			this.board[r][midC] = this.board[r][c];
-			this.board[r][c] = null;
-			if (this.isInCheck(this.turn)) {
-				this.board[r][c] = this.board[r][midC];
-				this.board[r][midC] = null;
-				return "Invalid move";
-			}
-			this.board[r][destC] = this.board[r][midC];
-			this.board[r][midC] = this.board[r][captureCoords.getC()]; // put rook in midC
-			this.board[r][captureCoords.getC()] = null;
-		}
-		Piece backupPiece = this.board[destR][destC];
-		this.board[r][c] = null;
-		this.board[destR][destC] = p;
-
-		ArrayList<Piece> backupUnsetFirstTurnAfterMoveList = new ArrayList<>();
-		while (unsetFirstTurnAfterMoveList.size() > 0) {
-			Piece ftamP = unsetFirstTurnAfterMoveList.remove(0);
-			backupUnsetFirstTurnAfterMoveList.add(ftamP);
-			((FirstTurnAfterMove)ftamP).unsetFirstTurnAfterMove();
-		}
-
-		if (p instanceof HasMoved) {
-			boolean prev = ((HasMoved) p).hasMoved();
-			((HasMoved) p).setMoved();
-			if (p instanceof FirstTurnAfterMove) {
-				if (((FirstTurnAfterMove) p).setIsFirstTurnAfterMove(prev)) {
-					unsetFirstTurnAfterMoveList.add(p);
-				}
+		if (!Piece.validLoc(r, c)) return MoveResult.INVALID_LOCATION;
+		if (!Piece.validLoc(destR, destC)) return MoveResult.INVALID_DESTINATION;
+		if ((p = this.getTile(r, c)) == null) return MoveResult.NO_PIECE;
+		if (p.getColorIndex() != this.sideToMove) return MoveResult.WRONG_COLOR;
+		if (promotion < KNIGHT || promotion > QUEEN) return MoveResult.INVALID_PROMOTION;
+		int from = Bitboards.square(r, c);
+		int dest = Bitboards.square(destR, destC);
+		int move = Move.NONE;
+		MoveList moves = this.turnMoves;
+		moves.clear();
+		p.generateMoves(this, from, moves);
+		for (int i = 0; i < moves.size(); i++) {
+			int m = moves.get(i);
+			if (Move.getTo(m) == dest && (Move.getPromotion(m) == 0 || Move.getPromotion(m) == promotion)) {
+				move = m;
+				break;
 			}
 		}
+		if (move == Move.NONE) return MoveResult.INVALID_MOVE;
 
-		if (this.isInCheck(this.getTurn())) {
+		int color = this.sideToMove;
+		UndoInfo undo = this.turnUndo;
+		this.makeMove(move, undo);
+		if (this.isInCheck(color)) {
 			// undo current move
-//			this.board[destR][destC] = this.board[r][c];
-			this.board[r][c] = this.board[destR][destC];
-			this.board[destR][destC] = backupPiece;
-			this.unsetFirstTurnAfterMoveList = backupUnsetFirstTurnAfterMoveList;
-			return "Moved into check";
-		}
-
-		boolean promoted = false;
-		if (p.getName().equals("p") && (destR == 7 || destR == 0)) { // promote
-			if (promoteTo.equals("Q")) {
-				p = new Queen(p.getColor());
-			} else if (promoteTo.equals("R")) {
-				p = new Rook(p.getColor());
-			} else if (promoteTo.equals("N")) {
-				p = new Knight(p.getColor());
-			} else if (promoteTo.equals("B")) {
-				p = new Bishop(p.getColor());
-			}
+			this.unmakeMove(move, undo);
+			return MoveResult.MOVED_INTO_CHECK;
+		}
 
-			this.board[destR][destC] = p;
-			promoted = true;
-		}
-
-		// record move to history
-		this.boardHistory.add(prevBoard);
-		String colLabel = "abcdefgh";
-		this.history.add("" + colLabel.charAt(c) + (8 - r) + " " + colLabel.charAt(destC) + (8 - destR) + (promoted ? " " + promoteTo : ""));
-
-		// reset canUndo
-		canUndo = true;
-
-		String retStr = "Success";
-		if (this.isInCheck(this.getNextTurn())) { // checkmate
-			boolean notCheckMate = false;
-			for (int tmpR = 0; tmpR < 8; tmpR++) {
-				for (int tmpC = 0; tmpC < 8; tmpC++) {
-					Piece currentPiece;
-					if ((currentPiece = this.getTile(tmpR, tmpC)) != null && currentPiece.getColor().equals(this.getNextTurn())) {
-						// for all enemy pieces, if they are unable to move in a way that gets the king out of check, checkmate
-						Piece.Coords prevCoords = new Piece.Coords(tmpR, tmpC);
-						for (Piece.Coords coords : currentPiece.getPossibleMoves(this, tmpR, tmpC)) {
-							Piece[][] copyBoard = this.copyBoard();
-							copyBoard[coords.getR()][coords.getC()] = currentPiece;
-							copyBoard[prevCoords.getR()][prevCoords.getC()] = null;
-							if (!this.isInCheck(this.getNextTurn(), copyBoard)) notCheckMate = true;
-							if (notCheckMate) break;
-						}
-					}
-					if (notCheckMate) break;
-				}
-			}
-			if (!notCheckMate) retStr = "Checkmate";
-		} else { // stalemate
-			boolean canMove = false;
-			for (int tmpR = 0; tmpR < 8; tmpR++) {
-				for (int tmpC = 0; tmpC < 8; tmpC++) {
-					Piece currentPiece;
-					if ((currentPiece = this.getTile(tmpR, tmpC)) != null && currentPiece.getColor().equals(this.getNextTurn())) {
-						// for all enemy pieces, if they are unable to move in a way such that the king is not in check, stalemate
-						Piece.Coords prevCoords = new Piece.Coords(tmpR, tmpC);
-						for (Piece.Coords coords : currentPiece.getPossibleMoves(this, tmpR, tmpC)) {
-							Piece[][] copyBoard = this.copyBoard();
-							copyBoard[coords.getR()][coords.getC()] = currentPiece;
-							copyBoard[prevCoords.getR()][prevCoords.getC()] = null;
-							if (!this.isInCheck(this.getNextTurn(), copyBoard)) canMove = true;
-							if (canMove) break;
-						}
-					}
-					if (canMove) break;
-				}
-				if (canMove) break;
-			}
-			if (!canMove) retStr = "Stalemate";
+		// record move, the moves which were undone can no longer be redone
+		if (this.ply == this.moveRecords.length) this.moveRecords = Arrays.copyOf(this.moveRecords, this.ply * 2);
+		this.moveRecords[this.ply++] = pack(undo);
+		this.redoLimit = this.ply;
+
+		// if the other side has no legal move, checkmate if the king is in check and stalemate otherwise;
+		// a position in the tablebases which is not drawn is known to be checkmate or still going
+		boolean check = this.isInCheck(color ^ 1);
+		int score = this.tablebase == null ? Tablebase.NOT_FOUND : this.tablebase.probe(this);
+		if (score == -MATE) return MoveResult.CHECKMATE;
+		if (score == Tablebase.NOT_FOUND || score == 0) {
+			MoveList replies = this.turnMoves;
+			replies.clear();
+			this.generateLegalMoves(replies);
+			if (replies.size() == 0) return check ? MoveResult.CHECKMATE : MoveResult.STALEMATE;
+		}
+		if (this.isRepetition(2)) return MoveResult.REPETITION;
+		if (this.halfmoveClock >= 100) return MoveResult.FIFTY_MOVE_RULE;
+		return check ? MoveResult.CHECK : MoveResult.SUCCESS;
+	}
+
+	/**
+	 * Converts the letter of a piece a pawn can promote to into its type index.
+	 *
+	 * @param promoteTo "Q", "R", "B" or "N"
+	 * @return QUEEN, ROOK, BISHOP or KNIGHT, or -1 if promoteTo is none of them
+	 */
+	public static int promotionType(String promoteTo) {
+		if (promoteTo == null || promoteTo.length() != 1 || ("QRBN").indexOf(promoteTo) == -1) return -1;
+		return typeIndex(promoteTo);
+	}
+
+	/**
+	 * Makes a move in place without checking whether it is legal and passes the turn. The state needed to
+	 * take the move back is stored in the undo record.
+	 *
+	 * @param move packed move (see Move) generated for this position
+	 * @param undo record to fill in for unmakeMove
+	 */
+	public void makeMove(int move, UndoInfo undo) {
+		int from = Move.getFrom(move);
+		int to = Move.getTo(move);
+		undo.move = move;
+		undo.castlingRights = this.castlingRights;
+		undo.enPassantSquare = this.enPassantSquare;
+		undo.hash = this.hash;
+		undo.halfmoveClock = this.halfmoveClock;
+		if (this.keyCount == this.keyHistory.length) this.keyHistory = Arrays.copyOf(this.keyHistory, this.keyCount * 2);
+		this.keyHistory[this.keyCount++] = this.hash;
+		boolean pawnMove = (this.pieceBitboards[this.sideToMove * 6 + PAWN] & Bitboards.bit(from)) != 0;
+		this.halfmoveClock = pawnMove || Move.isCapture(move) ? 0 : this.halfmoveClock + 1;
+		this.hash ^= this.enPassantKey() ^ Zobrist.castling(this.castlingRights);
+		Piece p = this.remove(from);
+		undo.moved = p;
+		undo.captured = this.remove(Move.isEnPassant(move) ? enPassantVictim(to) : to);
+		if (Move.getPromotion(move) != 0) p = Piece.of(p.getColorIndex(), Move.getPromotion(move));
+		this.put(to, p);
+		if (Move.isCastle(move)) {
+			this.put((from + to) >>> 1, this.remove(to > from ? from + 3 : from - 4));
 		}
+		this.castlingRights &= CASTLING_MASKS[from] & CASTLING_MASKS[to];
+		this.enPassantSquare = Move.isDoublePush(move) ? (from + to) >>> 1 : -1;
+		this.nextTurn();
+		this.hash ^= this.enPassantKey() ^ Zobrist.castling(this.castlingRights);
+		if (verifyHash) this.checkHash();
+	}
 
+	/**
+	 * Makes a move in place without checking whether it is legal.
+	 *
+	 * @param move packed move (see Move) generated for this position
+	 * @return undo record for unmakeMove
+	 */
+	public UndoInfo makeMove(int move) {
+		UndoInfo undo = new UndoInfo();
+		this.makeMove(move, undo);
+		return undo;
+	}
+
+	/**
+	 * Takes back a move made with makeMove, restoring the captured piece, castling rights, en passant
+	 * square and turn.
+	 *
+	 * @param move packed move that was made
+	 * @param undo record filled in by makeMove
+	 */
+	public void unmakeMove(int move, UndoInfo undo) {
+		int from = Move.getFrom(move);
+		int to = Move.getTo(move);
 		this.nextTurn();
-		return retStr;
+		this.remove(to);
+		this.put(from, undo.moved);
+		if (undo.captured != null) this.put(Move.isEnPassant(move) ? enPassantVictim(to) : to, undo.captured);
+		if (Move.isCastle(move)) {
+			this.put(to > from ? from + 3 : from - 4, this.remove((from + to) >>> 1));
+		}
+		this.castlingRights = undo.castlingRights;
+		this.enPassantSquare = undo.enPassantSquare;
+		this.hash = undo.hash;
+		this.halfmoveClock = undo.halfmoveClock;
+		this.keyCount--;
+		if (verifyHash) this.checkHash();
+	}
+
+	/**
+	 * The square of the pawn captured by an en passant capture onto the given square.
+	 *
+	 * @param to en passant square
+	 * @return square of the captured pawn (behind the en passant square)
+	 */
+	private static int enPassantVictim(int to) {
+		return Bitboards.row(to) == 2 ? to + 8 : to - 8;
 	}
 
 	/**
-	 * Undoes previous move
-	 * @return true if successful
+	 * Undoes previous move, it can be redone with redoMove until another move is taken.
+	 * @return true if successful, false if no move was taken
 	 */
 	public boolean undoMove() {
-		if (this.boardHistory.size() == 0) return false;
-		this.board = this.boardHistory.get(this.boardHistory.size() - 1);
-		this.boardHistory.remove(this.boardHistory.size() - 1);
-		this.history.remove(this.history.size() - 1);
-		this.nextTurn();
+		if (this.ply == 0) return false;
+		UndoInfo undo = this.turnUndo;
+		this.unpack(this.moveRecords[--this.ply], undo);
+		this.unmakeMove(undo.move, undo);
+		return true;
+	}
+
+	/**
+	 * Takes again the last move undone with undoMove.
+	 * @return true if successful, false if there is no move to redo
+	 */
+	public boolean redoMove() {
+		if (this.ply == this.redoLimit) return false;
+		int move = (int) (this.moveRecords[this.ply++] & RECORD_MOVE_MASK);
+		this.makeMove(move, this.turnUndo);
 		return true;
 	}
 
 	/**
-	 * Limits undo to once per turn
+	 * Undoes or redoes moves until the given number of moves have been taken in the game.
 	 *
-	 * @return whether the undo was successful
+	 * @param ply number of moves, 0 for the position the game started in, up to getRecordedPlies()
+	 * @return true if successful, false if ply is out of that range
 	 */
-	public boolean undoLimited() {
-		if (canUndo) {
-			undoMove();
-			canUndo = false;
-			return true;
-		} else {
-			return false;
-		}
+	public boolean undoTo(int ply) {
+		if (ply < 0 || ply > this.redoLimit) return false;
+		while (this.ply > ply) this.undoMove();
+		while (this.ply < ply) this.redoMove();
+		return true;
+	}
+
+	/**
+	 * Get the number of moves taken to reach the current position.
+	 *
+	 * @return moves taken in the game, less the ones undone
+	 */
+	public int getPly() {
+		return this.ply;
+	}
+
+	/**
+	 * Get the number of moves recorded, those taken and those undone which can be redone.
+	 *
+	 * @return the largest ply undoTo accepts
+	 */
+	public int getRecordedPlies() {
+		return this.redoLimit;
+	}
+
+	/**
+	 * Packs an undo record of a move into a long: the move in bits 0-18, the captured piece (color * 6 + type
+	 * + 1, 0 if none) in 19-22, the castling rights in 23-26, the en passant square + 1 in 27-33 and the
+	 * halfmove clock in 34 and above. The moved piece and the hash are not kept, unpack finds them.
+	 *
+	 * @param undo record filled in by makeMove
+	 * @return packed record
+	 */
+	private static long pack(UndoInfo undo) {
+		long captured = undo.captured == null ? 0 : undo.captured.getColorIndex() * 6 + undo.captured.getType() + 1;
+		return undo.move | captured << 19 | (long) undo.castlingRights << 23
+				| (long) (undo.enPassantSquare + 1) << 27 | (long) undo.halfmoveClock << 34;
+	}
+
+	/**
+	 * Unpacks the record of the last move made into an undo record for unmakeMove.
+	 *
+	 * @param record record made with pack when the move was made
+	 * @param undo undo record to fill in
+	 */
+	private void unpack(long record, UndoInfo undo) {
+		undo.move = (int) (record & RECORD_MOVE_MASK);
+		int captured = (int) (record >>> 19) & 15;
+		undo.captured = captured == 0 ? null : Piece.of((captured - 1) / 6, (captured - 1) % 6);
+		undo.castlingRights = (int) (record >>> 23) & 15;
+		undo.enPassantSquare = ((int) (record >>> 27) & 127) - 1;
+		undo.halfmoveClock = (int) (record >>> 34);
+		// the piece on the destination square, unless it was a pawn which promoted
+		int to = Move.getTo(undo.move);
+		undo.moved = Move.getPromotion(undo.move) != 0 ? Piece.of(this.sideToMove ^ 1, PAWN) : this.squares[to];
+		// makeMove pushed the hash before the move onto keyHistory
+		undo.hash = this.keyHistory[this.keyCount - 1];
 	}
 
 	/**
@@ -297,35 +578,232 @@ public class Board {
 	 * @return String in form of "e2 e4\ne7 e5\ne4 e7 Q\n..." where 3rd column is promotion choice.
 	 */
 	public String printGameAsMoves() {
-		String ret = "";
-		for (String s : this.history) {
-			ret += s + "\n";
+		StringBuilder sb = new StringBuilder(this.ply * 8);
+		try {
+			this.writeGameAsMoves(sb);
+		} catch (IOException e) {
+			// a StringBuilder never throws
+			throw new IllegalStateException(e);
 		}
-		return ret;
+		return sb.toString();
+	}
+
+	/**
+	 * Writes the current game's moves one at a time, in the same form as printGameAsMoves, so a long game
+	 * can be saved without building the whole text first.
+	 *
+	 * @param out output to write to, eg. a Writer
+	 * @throws IOException if out cannot be written
+	 */
+	public void writeGameAsMoves(Appendable out) throws IOException {
+		for (int i = 0; i < this.ply; i++) {
+			Move.appendTo(out, (int) (this.moveRecords[i] & RECORD_MOVE_MASK)).append('\n');
+		}
+	}
+
+	/**
+	 * Sets the opening book makeMove() plays from while the position is in it.
+	 *
+	 * @param book opening book, null to always search
+	 */
+	public void setOpeningBook(OpeningBook book) {
+		this.openingBook = book;
+	}
+
+	/**
+	 * Sets the endgame tables makeMove() plays from and takeTurn() finds checkmates with.
+	 *
+	 * @param tablebase tablebases, null for none
+	 */
+	public void setTablebase(Tablebase tablebase) {
+		this.tablebase = tablebase;
 	}
 
-	public boolean makeMove() {
-		ArrayList<int[]> coords = new ArrayList<>();
-		for (int c = 0; c < 7; c++) {
-			for (int r = 0; r < 7; r++) {
-				Piece p = this.board[r][c];
-				if (p == null || p.getColor() != this.getTurn()) continue;
-				List<Piece.Coords> possible = p.getPossibleMoves(this, r, c);
-				for (Piece.Coords co : possible) {
-					coords.add(new int[]{r, c, co.getR(), co.getC()});
+	/**
+	 * Makes a move for the current player, from the opening book if one is set and has the position, otherwise
+	 * chosen by the engine (see Search) within ENGINE_MOVE_MILLIS.
+	 *
+	 * @return result of the move, or CHECKMATE or STALEMATE of the position as it is if the current player
+	 * has no legal move
+	 */
+	public MoveResult makeMove() {
+		int move = this.openingBook == null ? Move.NONE : this.openingBook.probe(this);
+		if (move == Move.NONE) {
+			if (this.engine == null) this.engine = new Search(new TranspositionTable(ENGINE_HASH_MB));
+			this.engine.setTablebase(this.tablebase);
+			move = this.engine.search(this, TimeManager.moveTime(ENGINE_MOVE_MILLIS));
+		}
+		if (move == Move.NONE) return this.isInCheck() ? MoveResult.CHECKMATE : MoveResult.STALEMATE;
+		int from = Move.getFrom(move);
+		int to = Move.getTo(move);
+		int promotion = Move.getPromotion(move) == 0 ? QUEEN : Move.getPromotion(move);
+		return this.takeTurn(Bitboards.row(from), Bitboards.col(from), Bitboards.row(to), Bitboards.col(to), promotion);
+	}
+
+	/**
+	 * Adds the pseudo-legal moves of the current player to the list (see Move). The moves may leave the
+	 * king in check.
+	 *
+	 * @param list list to add the packed moves to
+	 */
+	public void generateMoves(MoveList list) {
+		for (long pieces = this.colorBitboards[this.sideToMove]; pieces != 0; pieces &= pieces - 1) {
+			int sq = Long.numberOfTrailingZeros(pieces);
+			this.squares[sq].generateMoves(this, sq, list);
+		}
+	}
+
+	/**
+	 * Adds the legal moves of the current player to the list (see Move).
+	 *
+	 * @param list list to add the packed moves to
+	 */
+	public void generateLegalMoves(MoveList list) {
+		this.generateLegalMoves(list, -1L, -1L, -1L);
+	}
+
+	/**
+	 * Adds the legal captures and promotions of the current player to the list, the moves which change
+	 * the material on the board.
+	 *
+	 * @param list list to add the packed moves to
+	 */
+	public void generateLegalCaptures(MoveList list) {
+		long enemy = this.colorBitboards[this.sideToMove ^ 1];
+		long ep = this.enPassantSquare == -1 ? 0 : Bitboards.bit(this.enPassantSquare);
+		this.generateLegalMoves(list, -1L, enemy | ep | Bitboards.RANK_1 | Bitboards.RANK_8, enemy);
+	}
+
+	/**
+	 * Adds the legal moves of the current player which are not in generateLegalCaptures to the list.
+	 *
+	 * @param list list to add the packed moves to
+	 */
+	public void generateLegalQuiets(MoveList list) {
+		long empty = ~this.occupancy;
+		long ep = this.enPassantSquare == -1 ? 0 : Bitboards.bit(this.enPassantSquare);
+		this.generateLegalMoves(list, -1L, empty & ~(ep | Bitboards.RANK_1 | Bitboards.RANK_8), empty);
+	}
+
+	/**
+	 * Whether a move is legal for the current player, eg. a move remembered from another position.
+	 *
+	 * @param move packed move
+	 * @return true if the move is one of generateLegalMoves
+	 */
+	public boolean isLegal(int move) {
+		if (move == Move.NONE) return false;
+		long from = Bitboards.bit(Move.getFrom(move));
+		if ((this.colorBitboards[this.sideToMove] & from) == 0) return false;
+		long to = Bitboards.bit(Move.getTo(move));
+		this.scratch.clear();
+		this.generateLegalMoves(this.scratch, from, to, to);
+		return this.scratch.contains(move);
+	}
+
+	/**
+	 * Adds legal moves of the current player to the list (see Move). Pinned pieces and the squares which
+	 * block or capture a checker are worked out first, so no move has to be tried on the board.
+	 *
+	 * @param list list to add the packed moves to
+	 * @param from bitboard of the squares to generate moves of the pieces on
+	 * @param pawnTargets bitboard of the squares pawn moves may end on
+	 * @param pieceTargets bitboard of the squares moves of the other pieces may end on
+	 */
+	private void generateLegalMoves(MoveList list, long from, long pawnTargets, long pieceTargets) {
+		int us = this.sideToMove;
+		int them = us ^ 1;
+		int king = this.kingSquares[us];
+		long[] bb = this.pieceBitboards;
+		long own = this.colorBitboards[us];
+		if (king == -1) { // without a king every move is legal
+			for (long pieces = own & from; pieces != 0; pieces &= pieces - 1) {
+				int sq = Long.numberOfTrailingZeros(pieces);
+				boolean pawn = (bb[us * 6 + PAWN] & Bitboards.bit(sq)) != 0;
+				this.squares[sq].generateMoves(this, sq, list, pawn ? pawnTargets : pieceTargets);
+			}
+			return;
+		}
+		long enemy = this.colorBitboards[them];
+		long checkers = this.attackersTo(king, this.occupancy) & enemy;
+
+		// king moves, including castling if not in check (generateMoves checks the squares it starts in
+		// and passes through), must not land on an attacked tile; the king itself is removed from the
+		// occupancy so it cannot hide behind its own square from a slider
+		if ((from & Bitboards.bit(king)) != 0) {
+			int start = list.size();
+			this.squares[king].generateMoves(this, king, list, pieceTargets);
+			long kingless = this.occupancy & ~Bitboards.bit(king);
+			int size = start;
+			for (int i = start; i < list.size(); i++) {
+				int move = list.get(i);
+				if (!this.isAttacked(Move.getTo(move), them, Move.isCastle(move) ? this.occupancy : kingless)) {
+					list.set(size++, move);
 				}
 			}
+			list.truncate(size);
 		}
+		if (Long.bitCount(checkers) > 1) return; // double check, only the king can move
 
-		while (coords.size() > 0) {
-			int rand = (int)Math.floor(Math.random() * coords.size());
-			int[] test = coords.get(rand);
-			coords.remove(rand);
-			String res = this.takeTurn(test[0], test[1], test[2], test[3]);
-			if (res.equals("Success")) return true;
-			if (res.equals("Checkmate") || res.equals("Stalemate")) return true;
+		// in check every other move has to capture the checker or block between it and the king
+		long checkMask = checkers == 0 ? -1L : checkers | Attacks.between(king, Long.numberOfTrailingZeros(checkers));
+
+		// a piece is pinned if it is the only piece between the king and an enemy slider
+		long rookSliders = bb[them * 6 + ROOK] | bb[them * 6 + QUEEN];
+		long bishopSliders = bb[them * 6 + BISHOP] | bb[them * 6 + QUEEN];
+		long pinned = 0;
+		long snipers = (Attacks.rook(king, enemy) & rookSliders) | (Attacks.bishop(king, enemy) & bishopSliders);
+		for (; snipers != 0; snipers &= snipers - 1) {
+			int sniper = Long.numberOfTrailingZeros(snipers);
+			long between = Attacks.between(king, sniper) & this.occupancy;
+			if (Long.bitCount(between) == 1 && (between & own) != 0) {
+				pinned |= between;
+				this.pinRays[Long.numberOfTrailingZeros(between)] = Attacks.between(king, sniper) | Bitboards.bit(sniper);
+			}
 		}
-		return false; // checkmate / stalemate?
+
+		// en passant is left to isLegalEnPassant, the captured pawn is not on the square the pawn moves to
+		long ep = this.enPassantSquare == -1 ? 0 : Bitboards.bit(this.enPassantSquare) & pawnTargets;
+		for (long pieces = own & ~Bitboards.bit(king) & from; pieces != 0; pieces &= pieces - 1) {
+			int sq = Long.numberOfTrailingZeros(pieces);
+			long allowed = (pinned & Bitboards.bit(sq)) != 0 ? checkMask & this.pinRays[sq] : checkMask;
+			if (allowed == 0) continue;
+			if ((bb[us * 6 + PAWN] & Bitboards.bit(sq)) == 0) {
+				this.squares[sq].generateMoves(this, sq, list, pieceTargets & allowed);
+				continue;
+			}
+			int start = list.size();
+			this.squares[sq].generateMoves(this, sq, list, (pawnTargets & allowed) | ep);
+			if (ep == 0) continue;
+			int size = start;
+			for (int i = start; i < list.size(); i++) {
+				int move = list.get(i);
+				if (!Move.isEnPassant(move) || this.isLegalEnPassant(move, us)) list.set(size++, move);
+			}
+			list.truncate(size);
+		}
+	}
+
+	/**
+	 * Whether an en passant capture leaves the king safe. Both pawns leave the row of the captured pawn at
+	 * once, which can uncover a slider that no pin test sees, so the capture is checked directly.
+	 *
+	 * @param move packed en passant move
+	 * @param us color of the capturing side
+	 * @return true if the king is not attacked after the capture
+	 */
+	private boolean isLegalEnPassant(int move, int us) {
+		int king = this.kingSquares[us];
+		int them = us ^ 1;
+		int to = Move.getTo(move);
+		long victim = Bitboards.bit(enPassantVictim(to));
+		long occ = (this.occupancy ^ Bitboards.bit(Move.getFrom(move)) ^ victim) | Bitboards.bit(to);
+		long[] bb = this.pieceBitboards;
+		long enemy = this.colorBitboards[them] & ~victim;
+		return (Attacks.rook(king, occ) & (bb[them * 6 + ROOK] | bb[them * 6 + QUEEN])) == 0
+				&& (Attacks.bishop(king, occ) & (bb[them * 6 + BISHOP] | bb[them * 6 + QUEEN])) == 0
+				&& (Attacks.knight(king) & bb[them * 6 + KNIGHT]) == 0
+				&& (Attacks.pawn(us, king) & bb[them * 6 + PAWN] & enemy) == 0;
 	}
 
 	/**
@@ -336,32 +814,7 @@ public class Board {
 	 * @return true if in check, false if no king found or not
 	 */
 	public boolean isInCheck(String side, Piece[][] board) {
-		int kingR = -1;
-		int kingC = -1;
-		for (int tmpR = 0; tmpR < 8; tmpR++) {
-			for (int tmpC = 0; tmpC < 8; tmpC++) {
-				Piece currentKing;
-				if ((currentKing = board[tmpR][tmpC]) != null && currentKing.getName() == "K" && currentKing.getColor().equals(side)) {
-					kingR = tmpR;
-					kingC = tmpC;
-					break;
-				}
-			}
-			if (kingR != -1 && kingC != -1) break;
-		}
-		if (kingR == -1 || kingC == -1) return false; // king not found
-		Piece selectedPiece;
-		for (int tmpR = 0; tmpR < 8; tmpR++) {
-			for (int tmpC = 0; tmpC < 8; tmpC++) {
-				if ((selectedPiece = board[tmpR][tmpC]) == null || selectedPiece.getColor().equals(side)) {
-					continue;
-				}
-				if (selectedPiece.canCapture(new Board(board), tmpR, tmpC, kingR, kingC)) {
-					return true;
-				}
-			}
-		}
-		return false;
+		return new Board(board).isInCheck(side);
 	}
 
 	/**
@@ -371,7 +824,19 @@ public class Board {
 	 * @return true if in check, false if no king found or not
 	 */
 	public boolean isInCheck(String side) {
-		return this.isInCheck(side, this.board);
+		return this.isInCheck(colorIndex(side));
+	}
+
+	/**
+	 * Checks whether specified color is in check on this board.
+	 *
+	 * @param color WHITE or BLACK
+	 * @return true if in check, false if no king found or not
+	 */
+	private boolean isInCheck(int color) {
+		int king = this.kingSquares[color];
+		if (king == -1) return false; // king not found
+		return this.isAttacked(king, color ^ 1);
 	}
 
 	/**
@@ -380,7 +845,129 @@ public class Board {
 	 * @return true if in check, false if no king found or not
 	 */
 	public boolean isInCheck() {
-		return this.isInCheck(this.getTurn());
+		return this.isInCheck(this.sideToMove);
+	}
+
+	/**
+	 * Whether the specified square is attacked by any piece of the specified color. Looks outward from the
+	 * square: a piece attacks it exactly when a piece of the same type on the square would attack that piece.
+	 *
+	 * @param sq square index (r * 8 + c)
+	 * @param byColor color of the attacking side (WHITE or BLACK)
+	 * @return true if any piece of that color attacks the square
+	 */
+	public boolean isAttacked(int sq, int byColor) {
+		return this.isAttacked(sq, byColor, this.occupancy);
+	}
+
+	/**
+	 * Whether the specified square is attacked, with sliders blocked by the given occupancy instead of
+	 * the board's.
+	 *
+	 * @param sq square index (r * 8 + c)
+	 * @param byColor color of the attacking side (WHITE or BLACK)
+	 * @param occ bitboard of occupied tiles
+	 * @return true if any piece of that color attacks the square
+	 */
+	private boolean isAttacked(int sq, int byColor, long occ) {
+		long[] bb = this.pieceBitboards;
+		int base = byColor * 6;
+		if ((Attacks.pawn(byColor ^ 1, sq) & bb[base + PAWN]) != 0) return true;
+		if ((Attacks.knight(sq) & bb[base + KNIGHT]) != 0) return true;
+		if ((Attacks.king(sq) & bb[base + KING]) != 0) return true;
+		long queens = bb[base + QUEEN];
+		if ((Attacks.rook(sq, occ) & (bb[base + ROOK] | queens)) != 0) return true;
+		return (Attacks.bishop(sq, occ) & (bb[base + BISHOP] | queens)) != 0;
+	}
+
+	/**
+	 * Finds every piece of both colors attacking the specified square.
+	 *
+	 * @param sq square index (r * 8 + c)
+	 * @param occ bitboard of occupied tiles, which sliders are blocked by
+	 * @return bitboard of the attacking pieces
+	 */
+	public long attackersTo(int sq, long occ) {
+		long[] bb = this.pieceBitboards;
+		long rooks = bb[ROOK] | bb[QUEEN] | bb[6 + ROOK] | bb[6 + QUEEN];
+		long bishops = bb[BISHOP] | bb[QUEEN] | bb[6 + BISHOP] | bb[6 + QUEEN];
+		return (Attacks.pawn(BLACK, sq) & bb[PAWN])
+				| (Attacks.pawn(WHITE, sq) & bb[6 + PAWN])
+				| (Attacks.knight(sq) & (bb[KNIGHT] | bb[6 + KNIGHT]))
+				| (Attacks.king(sq) & (bb[KING] | bb[6 + KING]))
+				| (Attacks.rook(sq, occ) & rooks)
+				| (Attacks.bishop(sq, occ) & bishops);
+	}
+
+	/**
+	 * Static exchange evaluation: the material the side to move wins or loses if both sides keep capturing
+	 * on the destination square of a move with their least valuable piece, each side free to stop when
+	 * capturing would lose. Sliders behind other attackers join in as the pieces in front of them leave.
+	 * Pins are ignored.
+	 *
+	 * @param move packed move of the side to move
+	 * @return material won in centipawns, negative if the move loses material
+	 */
+	public int see(int move) {
+		int from = Move.getFrom(move);
+		int to = Move.getTo(move);
+		int[] gain = this.seeGains;
+		long occ = this.occupancy ^ Bitboards.bit(from);
+		int captured;
+		if (Move.isEnPassant(move)) {
+			captured = PAWN;
+			occ ^= Bitboards.bit(enPassantVictim(to));
+		} else {
+			captured = this.squares[to] == null ? -1 : this.squares[to].getType();
+		}
+		int attacker = this.squares[from].getType();
+		gain[0] = captured == -1 ? 0 : SEE_VALUES[captured];
+		if (Move.getPromotion(move) != 0) {
+			attacker = Move.getPromotion(move);
+			gain[0] += SEE_VALUES[attacker] - SEE_VALUES[PAWN];
+		}
+		long attackers = this.attackersTo(to, occ) & occ;
+		int side = this.sideToMove ^ 1;
+		int d = 0;
+		while (true) {
+			d++;
+			// what the side to capture wins if it takes the piece on the square and loses its own piece
+			gain[d] = SEE_VALUES[attacker] - gain[d - 1];
+			long ours = attackers & this.colorBitboards[side];
+			if (ours == 0) break;
+			int type = PAWN;
+			while ((ours & this.pieceBitboards[side * 6 + type]) == 0) type++;
+			long next = Long.lowestOneBit(ours & this.pieceBitboards[side * 6 + type]);
+			occ ^= next;
+			attackers = this.attackersTo(to, occ) & occ;
+			// the king can only take last
+			if (type == KING && (attackers & this.colorBitboards[side ^ 1]) != 0) break;
+			attacker = type;
+			side ^= 1;
+		}
+		while (--d > 0) gain[d - 1] = -Math.max(-gain[d - 1], gain[d]);
+		return gain[0];
+	}
+
+	/**
+	 * Get the square of a king.
+	 *
+	 * @param color WHITE or BLACK
+	 * @return square index (r * 8 + c), or -1 if that king is not on the board
+	 */
+	public int getKingSquare(int color) {
+		return this.kingSquares[color];
+	}
+
+	/**
+	 * Get the type of the piece on a square.
+	 *
+	 * @param sq square index (r * 8 + c)
+	 * @return PAWN to KING, or -1 if the square is empty
+	 */
+	public int getPieceType(int sq) {
+		Piece p = this.squares[sq];
+		return p == null ? -1 : p.getType();
 	}
 
 	/**
@@ -391,11 +978,8 @@ public class Board {
 	 * @return piece at tile specified, or null if none there
 	 */
 	public Piece getTile(int r, int c) {
-		if (r < 0) throw new IllegalArgumentException("r must be greater than 0 but was: " + r);
-		if (r >= 8) throw new IllegalArgumentException("r must be less than 8 but was: " + r);
-		if (c < 0) throw new IllegalArgumentException("c must be greater than 0 but was: " + c);
-		if (c >= 8) throw new IllegalArgumentException("c must be less than 8 but was: " + c);
-		return this.board[r][c];
+		if (((r | c) & ~7) != 0) throw new IllegalArgumentException("r and c must be between 0 and 7 but were: " + r + ", " + c);
+		return this.squares[Bitboards.square(r, c)];
 	}
 
 	/**
@@ -406,75 +990,435 @@ public class Board {
 	 * @param p piece to replace that row and column with
 	 */
 	public void setTile(int r, int c, Piece p) {
-		this.board[r][c] = p;
+		int sq = Bitboards.square(r, c);
+		this.remove(sq);
+		if (p != null) this.put(sq, p);
+	}
+
+	/**
+	 * Get the bitboard of one piece type of one color.
+	 *
+	 * @param color WHITE or BLACK
+	 * @param type PAWN, KNIGHT, BISHOP, ROOK, QUEEN or KING
+	 * @return bitboard of the tiles holding that piece
+	 */
+	public long getPieceBitboard(int color, int type) {
+		return this.pieceBitboards[color * 6 + type];
+	}
+
+	/**
+	 * Get the bitboard of all tiles occupied by one color.
+	 *
+	 * @param color WHITE or BLACK
+	 * @return bitboard of the tiles holding a piece of that color
+	 */
+	public long getColorBitboard(int color) {
+		return this.colorBitboards[color];
+	}
+
+	/**
+	 * Get the bitboard of all occupied tiles.
+	 *
+	 * @return bitboard of the tiles holding any piece
+	 */
+	public long getOccupancy() {
+		return this.occupancy;
+	}
+
+	/**
+	 * Get the Zobrist hash of the position: the pieces, side to move, castling rights and en passant file.
+	 *
+	 * @return 64-bit hash, equal for equal positions
+	 */
+	public long hash() {
+		return this.hash;
 	}
 
 	/**
-	 * The current player's turn.
+	 * Get the Zobrist hash of the pawns alone, equal for positions with the same pawns of each color.
+	 *
+	 * @return 64-bit hash of the pawns
+	 */
+	public long pawnHash() {
+		return this.pawnHash;
+	}
+
+	/**
+	 * Computes the Zobrist hash from scratch.
+	 *
+	 * @return 64-bit hash of the position
+	 */
+	public long computeHash() {
+		long h = 0;
+		for (long pieces = this.occupancy; pieces != 0; pieces &= pieces - 1) {
+			int sq = Long.numberOfTrailingZeros(pieces);
+			Piece p = this.squares[sq];
+			h ^= Zobrist.piece(p.getColorIndex() * 6 + p.getType(), sq);
+		}
+		if (this.sideToMove == BLACK) h ^= Zobrist.BLACK_TO_MOVE;
+		return h ^ Zobrist.castling(this.castlingRights) ^ this.enPassantKey();
+	}
+
+	/**
+	 * The hash key of the en passant square. It only counts if a pawn of the side to move can capture
+	 * there, otherwise the same position would hash differently depending on the last move.
+	 *
+	 * @return the key of the en passant file, 0 if no en passant capture is possible
+	 */
+	private long enPassantKey() {
+		if (this.enPassantSquare == -1) return 0;
+		int color = this.sideToMove;
+		if ((Attacks.pawn(color ^ 1, this.enPassantSquare) & this.pieceBitboards[color * 6 + PAWN]) == 0) return 0;
+		return Zobrist.enPassant(Bitboards.col(this.enPassantSquare));
+	}
+
+	/**
+	 * Get the middlegame score of the pieces on the board.
+	 *
+	 * @return centipawns, positive if white is better
+	 */
+	public int getMiddlegameScore() {
+		return this.middlegameScore;
+	}
+
+	/**
+	 * Get the endgame score of the pieces on the board.
+	 *
+	 * @return centipawns, positive if white is better
+	 */
+	public int getEndgameScore() {
+		return this.endgameScore;
+	}
+
+	/**
+	 * Get the game phase, how much material other than pawns is left.
+	 *
+	 * @return 0 for kings and pawns only, Evaluation.MAX_PHASE in the starting position
+	 */
+	public int getPhase() {
+		return this.phase;
+	}
+
+	/**
+	 * Checks the incremental hashes and scores against ones computed from scratch.
+	 *
+	 * @throws IllegalStateException if they differ
+	 */
+	private void checkHash() {
+		long expected = this.computeHash();
+		if (this.hash != expected) {
+			throw new IllegalStateException("Hash is " + Long.toHexString(this.hash) + " but should be "
+					+ Long.toHexString(expected) + "\n" + this);
+		}
+		long pawns = 0;
+		for (int color = WHITE; color <= BLACK; color++) {
+			for (long bb = this.pieceBitboards[color * 6 + PAWN]; bb != 0; bb &= bb - 1) {
+				pawns ^= Zobrist.piece(color * 6 + PAWN, Long.numberOfTrailingZeros(bb));
+			}
+		}
+		if (this.pawnHash != pawns) {
+			throw new IllegalStateException("Pawn hash is " + Long.toHexString(this.pawnHash) + " but should be "
+					+ Long.toHexString(pawns) + "\n" + this);
+		}
+		int[] totals = Evaluation.evaluateFromScratch(this);
+		if (this.middlegameScore != totals[0] || this.endgameScore != totals[1] || this.phase != totals[2]) {
+			throw new IllegalStateException("Scores are " + this.middlegameScore + "/" + this.endgameScore + "/"
+					+ this.phase + " but should be " + totals[0] + "/" + totals[1] + "/" + totals[2] + "\n" + this);
+		}
+	}
+
+	/**
+	 * Turns checking the incremental hash and scores after every move on or off (for debugging, it is slow).
+	 *
+	 * @param verify true to recompute and check the hash and scores after every move
+	 */
+	public static void setVerifyHash(boolean verify) {
+		verifyHash = verify;
+	}
+
+	/**
+	 * Whether the position occurred before with the same side to move. Only the positions since the last
+	 * capture or pawn move are looked at, as none before it can come back.
+	 *
+	 * @param times how many earlier occurrences count as a repetition: 2 for the threefold repetition
+	 *              rule, 1 in a search, where repeating once means it can be repeated again
+	 * @return true if the position occurred at least that many times before
+	 */
+	public boolean isRepetition(int times) {
+		int seen = 0;
+		int stop = Math.max(0, this.keyCount - this.halfmoveClock);
+		for (int i = this.keyCount - 2; i >= stop; i -= 2) {
+			if (this.keyHistory[i] == this.hash && ++seen >= times) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Get the number of moves since the last capture or pawn move, a draw can be claimed once it reaches
+	 * 100.
+	 *
+	 * @return halfmove clock
+	 */
+	public int getHalfmoveClock() {
+		return this.halfmoveClock;
+	}
+
+	/**
+	 * Get the castling rights still available.
+	 *
+	 * @return WHITE_KINGSIDE, WHITE_QUEENSIDE, BLACK_KINGSIDE and BLACK_QUEENSIDE or'd together
+	 */
+	public int getCastlingRights() {
+		return this.castlingRights;
+	}
+
+	/**
+	 * Get the square a pawn can capture en passant onto this turn.
+	 *
+	 * @return square index (r * 8 + c), or -1 if none
+	 */
+	public int getEnPassantSquare() {
+		return this.enPassantSquare;
+	}
+
+	/**
+	 * Sets the castling rights from the pieces of a new board, a side can castle with a king and rook
+	 * which are on their starting squares. Once moves are made the rights are kept by makeMove.
+	 */
+	private void initCastlingRights() {
+		this.castlingRights = 0;
+		for (int color = WHITE; color <= BLACK; color++) {
+			int king = color == WHITE ? 60 : 4;
+			if (!this.isOn(king, color, KING)) continue;
+			if (this.isOn(king + 3, color, ROOK)) this.castlingRights |= WHITE_KINGSIDE << (2 * color);
+			if (this.isOn(king - 4, color, ROOK)) this.castlingRights |= WHITE_QUEENSIDE << (2 * color);
+		}
+	}
+
+	/**
+	 * Whether the specified piece is on a square.
+	 *
+	 * @param sq square index
+	 * @param color WHITE or BLACK
+	 * @param type piece type
+	 * @return true if that piece is there
+	 */
+	private boolean isOn(int sq, int color, int type) {
+		return (this.pieceBitboards[color * 6 + type] & Bitboards.bit(sq)) != 0;
+	}
+
+	/**
+	 * Places a piece on an empty square and updates the bitboards.
+	 *
+	 * @param sq square index (r * 8 + c)
+	 * @param p piece to place
+	 */
+	private void put(int sq, Piece p) {
+		long b = Bitboards.bit(sq);
+		int color = p.getColorIndex();
+		int type = p.getType();
+		this.squares[sq] = p;
+		this.hash ^= Zobrist.piece(color * 6 + type, sq);
+		this.middlegameScore += Evaluation.middlegame(color * 6 + type, sq);
+		this.endgameScore += Evaluation.endgame(color * 6 + type, sq);
+		this.phase += Evaluation.phase(type);
+		if (type == PAWN) this.pawnHash ^= Zobrist.piece(color * 6 + type, sq);
+		this.pieceBitboards[color * 6 + type] |= b;
+		this.colorBitboards[color] |= b;
+		this.occupancy |= b;
+		if (type == KING) this.kingSquares[color] = sq;
+	}
+
+	/**
+	 * Removes the piece on a square (if any) and updates the bitboards.
+	 *
+	 * @param sq square index (r * 8 + c)
+	 * @return the piece removed, or null if the square was empty
+	 */
+	private Piece remove(int sq) {
+		Piece p = this.squares[sq];
+		if (p == null) return null;
+		long b = ~Bitboards.bit(sq);
+		int color = p.getColorIndex();
+		int type = p.getType();
+		this.squares[sq] = null;
+		this.hash ^= Zobrist.piece(color * 6 + type, sq);
+		this.middlegameScore -= Evaluation.middlegame(color * 6 + type, sq);
+		this.endgameScore -= Evaluation.endgame(color * 6 + type, sq);
+		this.phase -= Evaluation.phase(type);
+		if (type == PAWN) this.pawnHash ^= Zobrist.piece(color * 6 + type, sq);
+		this.pieceBitboards[color * 6 + type] &= b;
+		this.colorBitboards[color] &= b;
+		this.occupancy &= b;
+		if (type == KING && this.kingSquares[color] == sq) this.kingSquares[color] = -1;
+		return p;
+	}
+
+	/**
+	 * Replaces the pieces on this board with the pieces of a board matrix.
+	 *
+	 * @param b 2d array of pieces
+	 */
+	private void load(Piece[][] b) {
+		this.squares = new Piece[64];
+		this.pieceBitboards = new long[12];
+		this.colorBitboards = new long[2];
+		this.occupancy = 0;
+		this.middlegameScore = 0;
+		this.endgameScore = 0;
+		this.phase = 0;
+		this.pawnHash = 0;
+		this.kingSquares = new int[]{-1, -1};
+		for (int r = 0; r < 8; r++) {
+			for (int c = 0; c < 8; c++) {
+				if (b[r][c] != null) this.put(Bitboards.square(r, c), b[r][c]);
+			}
+		}
+	}
+
+	/**
+	 * Converts a color name into its bitboard index.
+	 *
+	 * @param color "White" or "Black"
+	 * @return WHITE or BLACK
+	 */
+	static int colorIndex(String color) {
+		return color.equals("White") ? WHITE : BLACK;
+	}
+
+	/**
+	 * Converts a piece name into its bitboard type index.
+	 *
+	 * @param name name of the piece ("p", "N", "B", "R", "Q" or "K")
+	 * @return PAWN, KNIGHT, BISHOP, ROOK, QUEEN or KING
+	 */
+	static int typeIndex(String name) {
+		switch (name.charAt(0)) {
+			case 'p': return PAWN;
+			case 'N': return KNIGHT;
+			case 'B': return BISHOP;
+			case 'R': return ROOK;
+			case 'Q': return QUEEN;
+			case 'K': return KING;
+			default: throw new IllegalStateException("Do not recognize pieceName: " + name);
+		}
+	}
+
+	/**
+	 * The current player's turn, for display.
 	 *
 	 * @return "White" if white's turn, same for black
 	 */
 	public String getTurn() {
-		return this.turn;
+		return Piece.colorName(this.sideToMove);
+	}
+
+	/**
+	 * The current player's color index.
+	 *
+	 * @return WHITE or BLACK
+	 */
+	public int getSideToMove() {
+		return this.sideToMove;
 	}
 
 	/**
 	 * This method changes the turn to the other player.
 	 */
 	private void nextTurn() {
-		this.turn = this.getNextTurn();
+		this.sideToMove ^= 1;
+		this.hash ^= Zobrist.BLACK_TO_MOVE;
 	}
 
 	/**
-	 * Gets the next players turn.
+	 * Copies this board and creates a new Board. Pieces are shared, so this only copies arrays.
 	 *
-	 * @return either "White" or "Black" - the opposite of the current player's turn
+	 * @return new board in the same position as this one, with no moves to undo
 	 */
-	private String getNextTurn() {
-		return this.turn.equals("White") ? "Black" : "White";
+	public Board copy() {
+		return new Board(this);
 	}
 
 	/**
-	 * Copies this board and pieces (new pieces).
+	 * Constructs a board from a position in Forsyth-Edwards Notation, eg.
+	 * "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1". Fields after the pieces are optional.
 	 *
-	 * @return 2d matrix of new pieces
+	 * @param fen the position
+	 * @return new board in that position
+	 * @throws IllegalArgumentException if the pieces do not fit on the board
 	 */
-	private Piece[][] copyBoard() {
-		Piece[][] ret = new Piece[8][8];
-		for (int r = 0; r < 8; r++) {
-			for (int c = 0; c < 8; c++) {
-				Piece p = null;
-				Piece thisPiece;
-				if ((thisPiece = this.board[r][c]) != null) {
-					if (thisPiece.getName() == "p") {
-						p = new Pawn(thisPiece.getColor());
-					} else if (thisPiece.getName() == "R") {
-						p = new Rook(thisPiece.getColor());
-					} else if (thisPiece.getName() == "N") {
-						p = new Knight(thisPiece.getColor());
-					} else if (thisPiece.getName() == "B") {
-						p = new Bishop(thisPiece.getColor());
-					} else if (thisPiece.getName() == "Q") {
-						p = new Queen(thisPiece.getColor());
-					} else if (thisPiece.getName() == "K") {
-						p = new King(thisPiece.getColor());
-					} else {
-						throw new IllegalStateException("Do not recognize pieceName: " + thisPiece.getName());
-					}
+	public static Board fromFen(String fen) {
+		String[] fields = fen.trim().split("\\s+");
+		Board b = new Board("");
+		int r = 0;
+		int c = 0;
+		for (char ch : fields[0].toCharArray()) {
+			if (ch == '/') {
+				r++;
+				c = 0;
+			} else if (Character.isDigit(ch)) {
+				c += ch - '0';
+			} else {
+				if (r > 7 || c > 7 || "PNBRQK".indexOf(Character.toUpperCase(ch)) == -1) {
+					throw new IllegalArgumentException("Invalid FEN: " + fen);
 				}
-				ret[r][c] = p;
+				int color = Character.isUpperCase(ch) ? WHITE : BLACK;
+				b.put(Bitboards.square(r, c++), Piece.of(color, "PNBRQK".indexOf(Character.toUpperCase(ch))));
 			}
 		}
-		return ret;
+		b.sideToMove = fields.length > 1 && fields[1].equals("b") ? BLACK : WHITE;
+		b.castlingRights = 0;
+		if (fields.length > 2) {
+			if (fields[2].indexOf('K') != -1) b.castlingRights |= WHITE_KINGSIDE;
+			if (fields[2].indexOf('Q') != -1) b.castlingRights |= WHITE_QUEENSIDE;
+			if (fields[2].indexOf('k') != -1) b.castlingRights |= BLACK_KINGSIDE;
+			if (fields[2].indexOf('q') != -1) b.castlingRights |= BLACK_QUEENSIDE;
+		}
+		b.enPassantSquare = -1;
+		if (fields.length > 3 && fields[3].length() == 2) {
+			b.enPassantSquare = Bitboards.square(8 - (fields[3].charAt(1) - '0'), fields[3].charAt(0) - 'a');
+		}
+		if (fields.length > 4) b.halfmoveClock = Integer.parseInt(fields[4]);
+		b.hash = b.computeHash();
+		return b;
 	}
 
 	/**
-	 * Copies this board and creates a new Board.
+	 * Returns the position in Forsyth-Edwards Notation.
 	 *
-	 * @return new board with the same board matrix as this one
+	 * @return FEN string of the position
 	 */
-	public Board copy() {
-		return new Board(this.copyBoard());
+	public String toFen() {
+		StringBuilder sb = new StringBuilder();
+		for (int r = 0; r < 8; r++) {
+			int empty = 0;
+			for (int c = 0; c < 8; c++) {
+				Piece p = this.squares[Bitboards.square(r, c)];
+				if (p == null) {
+					empty++;
+					continue;
+				}
+				if (empty > 0) sb.append(empty);
+				empty = 0;
+				char name = "PNBRQK".charAt(p.getType());
+				sb.append(p.getColorIndex() == WHITE ? name : Character.toLowerCase(name));
+			}
+			if (empty > 0) sb.append(empty);
+			if (r < 7) sb.append('/');
+		}
+		sb.append(this.sideToMove == WHITE ? " w " : " b ");
+		if (this.castlingRights == 0) sb.append('-');
+		if ((this.castlingRights & WHITE_KINGSIDE) != 0) sb.append('K');
+		if ((this.castlingRights & WHITE_QUEENSIDE) != 0) sb.append('Q');
+		if ((this.castlingRights & BLACK_KINGSIDE) != 0) sb.append('k');
+		if ((this.castlingRights & BLACK_QUEENSIDE) != 0) sb.append('q');
+		if (this.enPassantSquare == -1) {
+			sb.append(" -");
+		} else {
+			sb.append(' ').append("abcdefgh".charAt(Bitboards.col(this.enPassantSquare)))
+					.append(8 - Bitboards.row(this.enPassantSquare));
+		}
+		return sb.append(' ').append(this.halfmoveClock).append(" 1").toString();
 	}
 
 	/**
@@ -483,16 +1427,17 @@ public class Board {
 	@Override
 	public String toString() {
 		String ret = "";
-		for (int i = 0; i < board.length; i++) {
-			for (int j = 0; j < board[0].length; j++) {
-				if (board[i][j] == null) {
+		for (int i = 0; i < 8; i++) {
+			for (int j = 0; j < 8; j++) {
+				Piece p = squares[Bitboards.square(i, j)];
+				if (p == null) {
 					if ((i % 2 == 0 && j % 2 != 0) || (i % 2 != 0 && j % 2 == 0)) {
 						ret += "## ";
 					} else {
 						ret += "   ";
 					}
 				} else {
-					ret += board[i][j] + " ";
+					ret += p + " ";
 				}
 			}
 			ret += (8 - i) + "\n";
@@ -507,15 +1452,46 @@ public class Board {
 	 */
 	public String[][] androidToString() {
 		String[][] temp = new String[8][8];
-		for (int i = 0; i < board.length; i++) {
-			for (int j = 0; j < board[0].length; j++) {
-				if (board[i][j] == null) {
+		for (int i = 0; i < 8; i++) {
+			for (int j = 0; j < 8; j++) {
+				Piece p = squares[Bitboards.square(i, j)];
+				if (p == null) {
 					temp[i][j] = "";
 				} else {
-					temp[i][j] = board[i][j].toString();
+					temp[i][j] = p.toString();
 				}
 			}
 		}
 		return temp;
 	}
+
+	/**
+	 * The state of the board that makeMove changes and cannot recompute, kept so that unmakeMove can
+	 * restore the position exactly.
+	 *
+	 * @author James Beetham
+	 * @author Samuel Jefferson
+	 */
+	public static class UndoInfo {
+		/** The move that was made. */
+		int move;
+
+		/** The piece that moved (the pawn itself for promotions). */
+		Piece moved;
+
+		/** The piece that was captured, null if none. */
+		Piece captured;
+
+		/** Castling rights before the move. */
+		int castlingRights;
+
+		/** En passant square before the move. */
+		int enPassantSquare;
+
+		/** Hash before the move. */
+		long hash;
+
+		/** Halfmove clock before the move. */
+		int halfmoveClock;
+	}
 }
\ No newline at end of file
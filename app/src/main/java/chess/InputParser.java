@@ -13,8 +13,9 @@ public class InputParser {
 	Board board = new Board();
 	boolean game = true;			// is there a game being played
 	boolean offerDraw = false;		// has a draw been offered
-	String drawOfferedBy = "";		// who offered the draw
+	int drawOfferedBy = -1;			// who offered the draw (Board.WHITE or Board.BLACK)
 	String winner;					// who won the game
+	boolean check = false;			// did the last move give check
 	
 	/**
 	 * Constructor enables testingMode if needed.
@@ -117,48 +118,57 @@ public class InputParser {
 	 * @param promoteTo what pawn is being promoted to (optional)
 	 */
 	void runMove(int r, int c, int destR, int destC, String promoteTo) {
-		String result;
-		if (promoteTo == null) {
-			result = board.takeTurn(r, c, destR, destC);
-		} else {
-			result = board.takeTurn(r, c, destR, destC, promoteTo);
-		}
+		int promotion = promoteTo == null ? Board.QUEEN : Board.promotionType(promoteTo);
+		MoveResult result = board.takeTurn(r, c, destR, destC, promotion);
 		
 		if (testingMode) {
 			System.out.println(r + "," + c + " " + destR + "," + destC);
 		}
 		
-		if (result.compareTo("Success") != 0) {
-			switch (result) {
-				case "Checkmate":
-					// get winner
-					
-					// reversed because board.takeTurn() ends the previous players turn
-					if (board.getTurn().compareTo("Black") == 0) { 
-						winner = "Black";
-					} else {
-						winner = "White";
-					}
-					System.out.println("Checkmate " + winner + " wins");
-					// end the game
-					game = false;
-					break;
+		if (result.isMoveMade()) check = result.isCheck();
+		switch (result) {
+			case SUCCESS:
+			case CHECK:
+				break;
 
-				case "Stalemate":
-					System.out.println("Stalemate");
-					game = false;
-					break;
-					
-				default:
-					// show real message if testing, otherwise print default error
-					if (testingMode == true) {
-						System.out.println(result);
-					} else {
-//						System.out.println("Illegal move, try again");
-						throw new IllegalArgumentException("Illegal move, try again");
-					}
-					break;
-			}
+			case CHECKMATE:
+				// get winner
+				
+				// reversed because board.takeTurn() ends the previous players turn
+				if (board.getSideToMove() == Board.BLACK) {
+					winner = "White";
+				} else {
+					winner = "Black";
+				}
+				System.out.println("Checkmate " + winner + " wins");
+				// end the game
+				game = false;
+				break;
+
+			case STALEMATE:
+				System.out.println("Stalemate");
+				game = false;
+				break;
+
+			case REPETITION:
+				System.out.println("Draw by repetition");
+				game = false;
+				break;
+
+			case FIFTY_MOVE_RULE:
+				System.out.println("Draw by fifty-move rule");
+				game = false;
+				break;
+				
+			default:
+				// show real message if testing, otherwise print default error
+				if (testingMode == true) {
+					System.out.println(result.getMessage());
+				} else {
+//					System.out.println("Illegal move, try again");
+					throw new IllegalArgumentException("Illegal move, try again");
+				}
+				break;
 		}
 	}
 	
@@ -167,14 +177,14 @@ public class InputParser {
 	 */
 	void offerDraw() {
 		offerDraw = true;
-		drawOfferedBy = board.getTurn();
+		drawOfferedBy = board.getSideToMove();
 	}
 	
 	/**
 	 * Used to confirm a draw offered by the other player.
 	 */
 	void confirmDraw() {
-		if (offerDraw && drawOfferedBy.compareTo(board.getTurn()) != 0) {
+		if (offerDraw && drawOfferedBy != board.getSideToMove()) {
 			game = false;
 			System.out.println("draw");
 		} else {
@@ -187,7 +197,7 @@ public class InputParser {
 	 **/
 	void resign() {
 		game = false;
-		if (board.getTurn().compareTo("White") == 0) {
+		if (board.getSideToMove() == Board.WHITE) {
 			winner = "Black";
 		} else {
 			winner = "White";
@@ -218,7 +228,7 @@ public class InputParser {
 					}
 				}
 				
-				if (board.isInCheck()) {
+				if (check) {
 					System.out.println("\nCheck");
 					System.out.print(board.getTurn() + "'s move: ");
 				} else {
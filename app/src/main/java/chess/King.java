@@ -1,8 +1,5 @@
 package chess;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import chess.Piece.Coords;
 
 /**
@@ -11,52 +8,43 @@ import chess.Piece.Coords;
  * @author James Beetham
  * @author Samuel Jefferson
  */
-public class King extends Piece implements HasMoved {
-	/**
-	 * Whether this piece has moved or not.
-	 */
-	private boolean moved = false;
-	
+public class King extends Piece {
 	/**
 	 * Constructs a new king (name = "K").
 	 * 
-	 * @param color what color the piece is (usually "Black" or "White")
+	 * @param color what color the piece is (Board.WHITE or Board.BLACK)
 	 */
-	public King(String color) {
-		super(color, "K");
-	}
-
-	@Override
-	public void setMoved() {
-		this.moved = true;
+	King(int color) {
+		super(color, Board.KING);
 	}
 
 	@Override
-	public boolean hasMoved() {
-		return this.moved;
-	}
-
-	@Override
-	public List<Coords> getPossibleMoves(Board b, int r, int c) {
-		List<Coords> ret = new ArrayList<>();
-		for (int tmpR = r - 1; tmpR <= r + 1; tmpR++) {
-			for (int tmpC = c - 1; tmpC <= c + 1; tmpC++) {
-				Piece p;
-				if (this.validLoc(tmpR, tmpC) && 
-						((p = b.getTile(tmpR, tmpC)) == null || !p.getColor().equals(this.getColor()))) {
-					ret.add(new Piece.Coords(tmpR, tmpC));
-				}
-			}
+	public void generateMoves(Board b, int sq, MoveList list, long targets) {
+		int color = this.getColorIndex();
+		Piece.addMoves(b, sq, Attacks.king(sq) & targets & ~b.getColorBitboard(color), list);
+		// castle if the rights remain, the tiles between king and rook are empty and the king does not
+		// start in or pass through check (landing in check is left to the legality test)
+		int rights = b.getCastlingRights() >>> (2 * color);
+		if ((rights & (Board.WHITE_KINGSIDE | Board.WHITE_QUEENSIDE)) == 0 || b.isAttacked(sq, color ^ 1)) return;
+		long occ = b.getOccupancy();
+		long rooks = b.getPieceBitboard(color, Board.ROOK);
+		if ((rights & Board.WHITE_KINGSIDE) != 0 && (targets & Bitboards.bit(sq + 2)) != 0 && (occ & (Bitboards.bit(sq + 1) | Bitboards.bit(sq + 2))) == 0
+				&& (rooks & Bitboards.bit(sq + 3)) != 0 && !b.isAttacked(sq + 1, color ^ 1)) {
+			list.add(Move.encode(sq, sq + 2, 0, Move.CASTLE));
+		}
+		if ((rights & Board.WHITE_QUEENSIDE) != 0 && (targets & Bitboards.bit(sq - 2)) != 0
+				&& (occ & (Bitboards.bit(sq - 1) | Bitboards.bit(sq - 2) | Bitboards.bit(sq - 3))) == 0
+				&& (rooks & Bitboards.bit(sq - 4)) != 0 && !b.isAttacked(sq - 1, color ^ 1)) {
+			list.add(Move.encode(sq, sq - 2, 0, Move.CASTLE));
 		}
-
-		return ret;
 	}
 
 	@Override
 	public Coords isValidMove(Board b, int r, int c, int endR, int endC) {
 		if (r == endR && Math.abs(c - endC) == 2) { // castle
 			int direction = c < endC ? 1 : -1;
-			if (this.hasMoved()) return null;
+			int rights = b.getCastlingRights() >>> (2 * this.getColorIndex());
+			if ((rights & (direction == 1 ? Board.WHITE_KINGSIDE : Board.WHITE_QUEENSIDE)) == 0) return null;
 			int i;
 			int rookCol = -1;
 			for (i = c + direction; i < 7 && i > 0; i += direction) { // check empty between king and rook
@@ -65,14 +53,13 @@ public class King extends Piece implements HasMoved {
 			}
 			rookCol += direction;
 			Piece rook;
-			if ((rook = b.getTile(r, rookCol)) != null && rook.getColor().equals(this.getColor()) 
-					&& !((HasMoved)rook).hasMoved()) {
+			if ((rook = b.getTile(r, rookCol)) != null && rook.getColorIndex() == this.getColorIndex()) {
 				return new Piece.Coords(-1, rookCol);
 			}
 		} else if (Math.abs(c - endC) <= 1 && Math.abs(r - endR) <= 1) {
 			Piece p;
 			if ((p = b.getTile(endR, endC)) != null) {
-				if (p.getColor().equals(this.getColor())) return null;
+				if (p.getColorIndex() == this.getColorIndex()) return null;
 				return new Piece.Coords(endR, endC);
 			}
 			return new Piece.Coords(-1, -1);
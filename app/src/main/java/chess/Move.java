@@ -0,0 +1,149 @@
+package chess;
+
+import java.io.IOException;
+
+/**
+ * Move packs a move into a single int so that move generation does not allocate.
+ * Bits 0-5 hold the square the piece moves from, bits 6-11 the square it moves to, bits 12-14 the piece
+ * type a pawn promotes to (0 if none) and the bits above that the flags below.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public final class Move {
+	/** No move, from and to are the same square so it can never be a real move. */
+	public static final int NONE = 0;
+
+	/** A piece is captured (also set for en passant). */
+	public static final int CAPTURE = 1 << 15;
+
+	/** A pawn captures en passant. */
+	public static final int EN_PASSANT = 1 << 16;
+
+	/** The king castles, the rook moves as well. */
+	public static final int CASTLE = 1 << 17;
+
+	/** A pawn moves forward two tiles. */
+	public static final int DOUBLE_PUSH = 1 << 18;
+
+	private Move() {
+	}
+
+	/**
+	 * Packs a move into an int.
+	 *
+	 * @param from square the piece moves from (r * 8 + c)
+	 * @param to square the piece moves to (r * 8 + c)
+	 * @param promotion piece type a pawn promotes to (Board.KNIGHT to Board.QUEEN) or 0 if none
+	 * @param flags CAPTURE, EN_PASSANT, CASTLE and DOUBLE_PUSH or'd together
+	 * @return the packed move
+	 */
+	public static int encode(int from, int to, int promotion, int flags) {
+		return from | (to << 6) | (promotion << 12) | flags;
+	}
+
+	/**
+	 * Get the square the piece moves from.
+	 *
+	 * @param move packed move
+	 * @return square index (r * 8 + c)
+	 */
+	public static int getFrom(int move) {
+		return move & 63;
+	}
+
+	/**
+	 * Get the square the piece moves to.
+	 *
+	 * @param move packed move
+	 * @return square index (r * 8 + c)
+	 */
+	public static int getTo(int move) {
+		return (move >>> 6) & 63;
+	}
+
+	/**
+	 * Get the piece type a pawn promotes to.
+	 *
+	 * @param move packed move
+	 * @return Board.KNIGHT to Board.QUEEN, or 0 if the move is not a promotion
+	 */
+	public static int getPromotion(int move) {
+		return (move >>> 12) & 7;
+	}
+
+	/**
+	 * Whether the move captures a piece.
+	 *
+	 * @param move packed move
+	 * @return true if a piece is captured
+	 */
+	public static boolean isCapture(int move) {
+		return (move & CAPTURE) != 0;
+	}
+
+	/**
+	 * Whether the move is a pawn capturing en passant.
+	 *
+	 * @param move packed move
+	 * @return true if en passant
+	 */
+	public static boolean isEnPassant(int move) {
+		return (move & EN_PASSANT) != 0;
+	}
+
+	/**
+	 * Whether the move is the king castling.
+	 *
+	 * @param move packed move
+	 * @return true if castling
+	 */
+	public static boolean isCastle(int move) {
+		return (move & CASTLE) != 0;
+	}
+
+	/**
+	 * Whether the move is a pawn moving forward two tiles.
+	 *
+	 * @param move packed move
+	 * @return true if a double push
+	 */
+	public static boolean isDoublePush(int move) {
+		return (move & DOUBLE_PUSH) != 0;
+	}
+
+	/**
+	 * Returns the move in the same form as the game history, eg. "e2 e4" or "e7 e8 Q".
+	 *
+	 * @param move packed move
+	 * @return string form of the move
+	 */
+	public static String toString(int move) {
+		StringBuilder sb = new StringBuilder(7);
+		try {
+			appendTo(sb, move);
+		} catch (IOException e) {
+			// a StringBuilder never throws
+			throw new IllegalStateException(e);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Appends the move in the same form as toString to any output, eg. a Writer or a StringBuilder, without
+	 * creating a string for it.
+	 *
+	 * @param out output to append to
+	 * @param move packed move
+	 * @return out
+	 * @throws IOException if out cannot be written
+	 */
+	public static Appendable appendTo(Appendable out, int move) throws IOException {
+		int from = getFrom(move);
+		int to = getTo(move);
+		out.append((char) ('a' + Bitboards.col(from))).append((char) ('8' - Bitboards.row(from))).append(' ')
+				.append((char) ('a' + Bitboards.col(to))).append((char) ('8' - Bitboards.row(to)));
+		if (getPromotion(move) != 0) out.append(' ').append("pNBRQK".charAt(getPromotion(move)));
+		return out;
+	}
+}
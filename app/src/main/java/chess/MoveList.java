@@ -0,0 +1,86 @@
+package chess;
+
+/**
+ * A reusable buffer of packed moves (see Move). The caller owns the list and clears it between uses,
+ * so generating moves into it does not allocate.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public final class MoveList {
+	/** More than the number of moves possible in any position. */
+	public static final int MAX_MOVES = 256;
+
+	/** The packed moves, only the first size are valid. */
+	private final int[] moves = new int[MAX_MOVES];
+
+	/** Number of moves in the list. */
+	private int size;
+
+	/**
+	 * Adds a move to the end of the list.
+	 *
+	 * @param move packed move
+	 */
+	public void add(int move) {
+		this.moves[this.size++] = move;
+	}
+
+	/**
+	 * Get a move from the list.
+	 *
+	 * @param i index of the move
+	 * @return the packed move
+	 */
+	public int get(int i) {
+		return this.moves[i];
+	}
+
+	/**
+	 * Replaces a move in the list.
+	 *
+	 * @param i index of the move
+	 * @param move packed move
+	 */
+	public void set(int i, int move) {
+		this.moves[i] = move;
+	}
+
+	/**
+	 * Number of moves in the list.
+	 *
+	 * @return the size of the list
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Removes all moves from the list.
+	 */
+	public void clear() {
+		this.size = 0;
+	}
+
+	/**
+	 * Removes the moves from index size onwards.
+	 *
+	 * @param size new size of the list
+	 */
+	public void truncate(int size) {
+		this.size = size;
+	}
+
+	/**
+	 * Whether the list contains a move.
+	 *
+	 * @param move packed move
+	 * @return true if found
+	 */
+	public boolean contains(int move) {
+		for (int i = 0; i < this.size; i++) {
+			if (this.moves[i] == move) return true;
+		}
+		return false;
+	}
+}
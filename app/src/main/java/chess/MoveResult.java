@@ -0,0 +1,77 @@
+package chess;
+
+/**
+ * MoveResult is what became of a move asked for with Board.takeTurn: either why it was refused, or that it
+ * was made and what it led to (check, or the game ending).
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public enum MoveResult {
+	INVALID_LOCATION("Invalid location", false, false),
+	INVALID_DESTINATION("Invalid destination", false, false),
+	NO_PIECE("No piece specified", false, false),
+	WRONG_COLOR("Wrong piece color", false, false),
+	INVALID_PROMOTION("Invalid promoteTo", false, false),
+	INVALID_MOVE("Invalid move", false, false),
+	MOVED_INTO_CHECK("Moved into check", false, false),
+	SUCCESS("Success", true, false),
+	CHECK("Check", true, false),
+	CHECKMATE("Checkmate", true, true),
+	STALEMATE("Stalemate", true, true),
+	REPETITION("Repetition", true, true),
+	FIFTY_MOVE_RULE("Fifty-move rule", true, true);
+
+	private final String message;
+	private final boolean moveMade;
+	private final boolean gameOver;
+
+	/**
+	 * Constructs a result with its message and what it means for the game.
+	 *
+	 * @param message text shown to the player
+	 * @param moveMade whether the move was made
+	 * @param gameOver whether the move ended the game
+	 */
+	MoveResult(String message, boolean moveMade, boolean gameOver) {
+		this.message = message;
+		this.moveMade = moveMade;
+		this.gameOver = gameOver;
+	}
+
+	/**
+	 * Get the text shown to the player, the same as takeTurn returned before results were typed.
+	 *
+	 * @return the message
+	 */
+	public String getMessage() {
+		return this.message;
+	}
+
+	/**
+	 * Whether the move was made and the turn passed to the other player.
+	 *
+	 * @return false if the move was refused
+	 */
+	public boolean isMoveMade() {
+		return this.moveMade;
+	}
+
+	/**
+	 * Whether the move gave check, so the other player's king is attacked.
+	 *
+	 * @return true for CHECK and CHECKMATE
+	 */
+	public boolean isCheck() {
+		return this == CHECK || this == CHECKMATE;
+	}
+
+	/**
+	 * Whether the move ended the game.
+	 *
+	 * @return true for CHECKMATE, STALEMATE and the draws
+	 */
+	public boolean isGameOver() {
+		return this.gameOver;
+	}
+}
@@ -1,8 +1,5 @@
 package chess;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import chess.Piece.Coords;
 
 /**
@@ -11,47 +8,61 @@ import chess.Piece.Coords;
  * @author James Beetham
  * @author Samuel Jefferson
  */
-public class Pawn extends Piece implements FirstTurnAfterMove {
-	/**
-	 * Whether this piece has moved or not.
-	 */
-	private boolean moved = false;
-
-	/**
-	 * Only true the first turn after this piece has moved forward double.
-	 */
-	private boolean enPassantable = false;
-	
+public class Pawn extends Piece {
 	/**
 	 * Constructs a new pawn (name = "p").
 	 * 
-	 * @param color what color the piece is (usually "Black" or "White")
+	 * @param color what color the piece is (Board.WHITE or Board.BLACK)
 	 */
-	public Pawn(String color) {
-		super(color, "p");
+	Pawn(int color) {
+		super(color, Board.PAWN);
 	}
 
 	@Override
-	public List<Coords> getPossibleMoves(Board b, int r, int c) {
-		ArrayList<Piece.Coords> arr = new ArrayList<>();
-		int direction = this.getDirection();
+	public void generateMoves(Board b, int sq, MoveList list, long targets) {
+		int color = this.getColorIndex();
+		int forward = 8 * this.getDirection();
+		long occ = b.getOccupancy();
 		// one move ahead
-		if (Piece.validLoc(r + direction, c) && b.getTile(r + direction, c) == null) {
-			arr.add(new Piece.Coords(r + direction, c));
-			// two moves ahead
-			if (!this.moved && b.getTile(r + 2 * direction, c) == null) arr.add(new Piece.Coords(r + 2 * direction, c));
+		int one = sq + forward;
+		if ((occ & Bitboards.bit(one)) == 0) {
+			if ((targets & Bitboards.bit(one)) != 0) addPawnMoves(sq, one, 0, list);
+			// two moves ahead from the starting row
+			int two = one + forward;
+			if (Bitboards.row(sq) == (color == Board.WHITE ? 6 : 1) && (occ & Bitboards.bit(two)) == 0
+					&& (targets & Bitboards.bit(two)) != 0) {
+				list.add(Move.encode(sq, two, 0, Move.DOUBLE_PUSH));
+			}
+		}
+		// capture
+		long attacks = Attacks.pawn(color, sq);
+		for (long captures = attacks & targets & b.getColorBitboard(color ^ 1); captures != 0; captures &= captures - 1) {
+			addPawnMoves(sq, Long.numberOfTrailingZeros(captures), Move.CAPTURE, list);
 		}
-		// capture and en passant
-		for (int i = -1; i <= 1; i += 2) {
-			Piece p;
-			if (this.validLoc(r + direction, c + i) && (p = b.getTile(r + direction, c + i)) != null && !p.getColor().equals(this.getColor())) {
-				arr.add(new Piece.Coords(r + direction, c + i));				
-			} else if (this.validLoc(r, c + i) && (p = b.getTile(r, c + i)) != null && p.getName().equals(this.getName()) 
-						&& !p.getColor().equals(this.getColor()) && ((FirstTurnAfterMove)p).isFirstTurnAfterMove()) {
-				arr.add(new Piece.Coords(r + direction, c + i));				
+		// en passant
+		int ep = b.getEnPassantSquare();
+		if (ep != -1 && (attacks & targets & Bitboards.bit(ep)) != 0) {
+			list.add(Move.encode(sq, ep, 0, Move.CAPTURE | Move.EN_PASSANT));
+		}
+	}
+
+	/**
+	 * Adds a pawn move, or one move per promotion choice if the pawn reaches the last row.
+	 *
+	 * @param from square the pawn moves from
+	 * @param to square the pawn moves to
+	 * @param flags move flags
+	 * @param list list to add the moves to
+	 */
+	private static void addPawnMoves(int from, int to, int flags, MoveList list) {
+		int row = Bitboards.row(to);
+		if (row == 0 || row == 7) {
+			for (int promotion = Board.QUEEN; promotion >= Board.KNIGHT; promotion--) {
+				list.add(Move.encode(from, to, promotion, flags));
 			}
+		} else {
+			list.add(Move.encode(from, to, 0, flags));
 		}
-		return arr;
 	}
 
 	@Override
@@ -63,50 +74,22 @@ public class Pawn extends Piece implements FirstTurnAfterMove {
 		if (c == endC) { // move forward
 			if (b.getTile(r + direction, c) == null) {
 				if (r + direction == endR) return successCoords;
-				if (!this.moved && b.getTile(r + 2 * direction, c) == null && r + 2 * direction == endR) return successCoords;
+				// two moves ahead from the starting row
+				if (r == (direction == -1 ? 6 : 1) && b.getTile(r + 2 * direction, c) == null && r + 2 * direction == endR) return successCoords;
 			}
 		} else if (Math.abs(endC - c) == 1) { // capture
 			if (endR - r == direction) {
 				int cDirection = endC - c;
 				Piece p;
-				if ((p = b.getTile(r + direction, c + cDirection)) != null && !p.getColor().equals(this.getColor())) {
+				if ((p = b.getTile(r + direction, c + cDirection)) != null && p.getColorIndex() != this.getColorIndex()) {
 					// capture diagonally
 					return new Piece.Coords(r + direction, c + cDirection);
-				} else if ((p = b.getTile(r, c + cDirection)) != null && p.getName().equals(this.getName()) 
-						&& !p.getColor().equals(this.getColor()) && ((FirstTurnAfterMove)p).isFirstTurnAfterMove()) {
-					// capture via en passant
-					return new Piece.Coords(direction, c + cDirection);
+				} else if (b.getEnPassantSquare() == Bitboards.square(endR, endC)) {
+					// capture via en passant, the pawn which just moved double is beside this one
+					return new Piece.Coords(r, c + cDirection);
 				}
 			}
 		}
 		return null;
 	}
-
-	@Override
-	public void setMoved() {
-		this.moved = true;
-	}
-
-	@Override
-	public boolean hasMoved() {
-		return this.moved;
-	}
-
-	@Override
-	public boolean isFirstTurnAfterMove() {
-		return this.enPassantable;
-	}
-
-	@Override
-	public boolean setIsFirstTurnAfterMove(boolean previous) {
-		if (!this.moved) return false;
-		if (previous) return false;
-		this.enPassantable = true;
-		return true;
-	}
-	
-	@Override
-	public void unsetFirstTurnAfterMove() {
-		this.enPassantable = false;
-	}
 }
@@ -1,39 +1,70 @@
 package chess;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import chess.Piece.Coords;
 
 /**
  * Piece is an abstract class that holds all the data types shared by all chess pieces.
+ * Pieces hold no state of their own, whether castling or en passant is possible is kept by the Board, so
+ * there is one shared instance of each piece (see of) and copying a board only copies references.
  * 
  * @author James Beetham
  * @author Samuel Jefferson
  */
 public abstract class Piece {
-	private String color;
-	private String name;
+	/** Color names indexed by Board.WHITE and Board.BLACK, for display. */
+	private static final String[] COLOR_NAMES = {"White", "Black"};
+
+	/** Piece names indexed by Board.PAWN to Board.KING, for display. */
+	private static final String[] NAMES = {"p", "N", "B", "R", "Q", "K"};
+
+	/** Board.WHITE or Board.BLACK. */
+	private final int color;
+
+	/** Board.PAWN to Board.KING. */
+	private final int type;
+
+	/**
+	 * The instance of each piece, indexed by color * 6 + type (see Board).
+	 */
+	private static final Piece[] PIECES = {
+			new Pawn(Board.WHITE), new Knight(Board.WHITE), new Bishop(Board.WHITE),
+			new Rook(Board.WHITE), new Queen(Board.WHITE), new King(Board.WHITE),
+			new Pawn(Board.BLACK), new Knight(Board.BLACK), new Bishop(Board.BLACK),
+			new Rook(Board.BLACK), new Queen(Board.BLACK), new King(Board.BLACK)
+	};
 	
 	/**
 	 * This method constructs the piece and sets its color.
 	 * 
-	 * @param color The color of the player who controls the piece
-	 * @param name The name of the piece
+	 * @param color The color of the player who controls the piece, Board.WHITE or Board.BLACK
+	 * @param type The type of the piece, Board.PAWN to Board.KING
 	 */
-	public Piece(String color, String name) {
-		if (color.compareTo("Black") != 0 && color.compareTo("White") != 0) {
+	Piece(int color, int type) {
+		if (color != Board.WHITE && color != Board.BLACK) {
 			throw new IllegalArgumentException("error: " + color + " is not a valid color");
 		}
 		this.color = color;
-		this.name = name;
+		this.type = type;
+	}
+	
+	/**
+	 * Get the shared instance of a piece.
+	 * 
+	 * @param color Board.WHITE or Board.BLACK
+	 * @param type Board.PAWN to Board.KING
+	 * @return the piece
+	 */
+	public static Piece of(int color, int type) {
+		return PIECES[color * 6 + type];
 	}
 	
 	/**
 	 * Sets the toString() to be the first letter of the color and the name of the piece.
 	 */
 	public String toString() {
-		return Character.toLowerCase(color.charAt(0)) + name;
+		return (this.color == Board.WHITE ? "w" : "b") + NAMES[this.type];
 	}
 	
 	/**
@@ -67,25 +98,53 @@ public abstract class Piece {
 	 * @return -1 if going up the board is forward (white), 1 if going down the board is forward (black)
 	 */
 	public int getDirection() {
-		return this.color == "White" ? -1 : 1;
+		return this.color == Board.WHITE ? -1 : 1;
 	}
 	
 	/**
-	 * Get the color of this piece ("White" or "Black")
+	 * Get the color of this piece ("White" or "Black"), for display.
 	 * 
 	 * @return the color of this piece
 	 */
 	public String getColor() {
+		return COLOR_NAMES[this.color];
+	}
+	
+	/**
+	 * Get the color index of this piece.
+	 * 
+	 * @return Board.WHITE or Board.BLACK
+	 */
+	public int getColorIndex() {
 		return this.color;
 	}
 	
 	/**
-	 * Get the name of this piece (eg "P" for pawn, "Q" for queen, etc)
+	 * Get the name of this piece (eg "p" for pawn, "Q" for queen, etc), for display.
 	 * 
 	 * @return string representing the name of this piece
 	 */
 	public String getName() {
-		return this.name;
+		return NAMES[this.type];
+	}
+	
+	/**
+	 * Get the type index of this piece.
+	 * 
+	 * @return Board.PAWN, Board.KNIGHT, Board.BISHOP, Board.ROOK, Board.QUEEN or Board.KING
+	 */
+	public int getType() {
+		return this.type;
+	}
+	
+	/**
+	 * Get the name of a color, for display.
+	 * 
+	 * @param color Board.WHITE or Board.BLACK
+	 * @return "White" or "Black"
+	 */
+	public static String colorName(int color) {
+		return COLOR_NAMES[color];
 	}
 	
 	/**
@@ -133,6 +192,11 @@ public abstract class Piece {
 			Piece.Coords obj = (Piece.Coords)o;
 			return obj.getR() == this.getR() && obj.getC() == this.getC();
 		}
+		
+		@Override
+		public int hashCode() {
+			return this.r * 8 + this.c;
+		}
 	}
 	
 	/**
@@ -146,41 +210,8 @@ public abstract class Piece {
 	 * @return list of piece coordinates of possible places this piece could move to from r and c specified
 	 */
 	public static List<Piece.Coords> getValidStraightMoves(Board b, Piece piece, int r, int c) {
-		ArrayList<Piece.Coords> arr = new ArrayList<>();
-		Piece p;
-		for (int i = r + 1; i < 8; i++) {
-			if ((p = b.getTile(i, c)) == null) {
-				arr.add(new Piece.Coords(i, c));
-			} else {
-				if (!p.getColor().equals(piece.getColor())) arr.add(new Piece.Coords(i, c));
-				break;
-			}
-		}
-		for (int i = c + 1; i < 8; i++) {
-			if ((p = b.getTile(r, i)) == null) {
-				arr.add(new Piece.Coords(r, i));
-			} else {
-				if (!p.getColor().equals(piece.getColor())) arr.add(new Piece.Coords(r, i));
-				break;
-			}
-		}
-		for (int i = r - 1; i >= 0; i--) {
-			if ((p = b.getTile(i, c)) == null) {
-				arr.add(new Piece.Coords(i, c));
-			} else {
-				if (!p.getColor().equals(piece.getColor())) arr.add(new Piece.Coords(i, c));
-				break;
-			}
-		}
-		for (int i = c - 1; i >= 0; i--) {
-			if ((p = b.getTile(r, i)) == null) {
-				arr.add(new Piece.Coords(r, i));
-			} else {
-				if (!p.getColor().equals(piece.getColor())) arr.add(new Piece.Coords(r, i));
-				break;
-			}
-		}
-		return arr;
+		long attacks = Attacks.rook(Bitboards.square(r, c), b.getOccupancy());
+		return Bitboards.toCoords(attacks & ~b.getColorBitboard(piece.getColorIndex()));
 	}
 	
 	/**
@@ -194,42 +225,8 @@ public abstract class Piece {
 	 * @return list of piece coordinates of possible places this piece could move to from r and c specified
 	 */
 	public static List<Piece.Coords> getValidDiagonalMoves(Board b, Piece piece, int r, int c) {
-		ArrayList<Piece.Coords> arr = new ArrayList<>();
-		Piece p;
-		for (int ir = r + 1, ic = c + 1; ir < 8 && ic < 8; ir++, ic++) {
-			if ((p = b.getTile(ir, ic)) == null) {
-				arr.add(new Piece.Coords(ir, ic));
-			} else {
-				if (!p.getColor().equals(piece.getColor())) arr.add(new Piece.Coords(ir, ic));
-				break;
-			}
-		}
-		for (int ir = r + 1, ic = c - 1; ir < 8 && ic >= 0; ir++, ic--) {
-			if ((p = b.getTile(ir, ic)) == null) {
-				arr.add(new Piece.Coords(ir, ic));
-			} else {
-				if (!p.getColor().equals(piece.getColor())) arr.add(new Piece.Coords(ir, ic));
-				break;
-			}
-		}
-		for (int ir = r - 1, ic = c + 1; ir >= 0 && ic < 8; ir--, ic++) {
-			if ((p = b.getTile(ir, ic)) == null) {
-				arr.add(new Piece.Coords(ir, ic));
-			} else {
-				if (!p.getColor().equals(piece.getColor())) arr.add(new Piece.Coords(ir, ic));
-				break;
-			}
-		}
-		for (int ir = r - 1, ic = c - 1; ir >= 0 && ic >= 0; ir--, ic--) {
-			if ((p = b.getTile(ir, ic)) == null) {
-				arr.add(new Piece.Coords(ir, ic));
-			} else {
-				if (!p.getColor().equals(piece.getColor())) arr.add(new Piece.Coords(ir, ic));
-				break;
-			}
-		}
-		
-		return arr;
+		long attacks = Attacks.bishop(Bitboards.square(r, c), b.getOccupancy());
+		return Bitboards.toCoords(attacks & ~b.getColorBitboard(piece.getColorIndex()));
 	}
 	
 	/**
@@ -245,27 +242,11 @@ public abstract class Piece {
 	 */
 	public static Piece.Coords isValidStraightMove(Board b, Piece piece, int r, int c, int endR, int endC) {
 		if (!Piece.validLoc(r, c) || !Piece.validLoc(endR, endC)) return null;
-		Piece.Coords successCoords = new Piece.Coords(endR, endC);
-		Piece p;
-		if (r == endR) { // horizontal
-			int direction = endC > c ? 1 : -1;
-			for (int i = c + direction; i != endC; i += direction) { // check all cells between c and endC, skipping current cell
-				if (b.getTile(r, i) != null) return null; // piece infront of destination
-			}
-			// capture
-			if ((p = b.getTile(r, endC)) != null && p.getColor().equals(piece.getColor())) return null;
-		} else if (c == endC) { // vertical
-			int direction = endR > r ? 1 : -1;
-			for (int i = r + direction; i != endR; i += direction) { // check all cells between c and endC, skipping current cell
-				if (b.getTile(i, c) != null) return null; // piece infront of destination
-			}
-			// capture
-			if ((p = b.getTile(endR, c)) != null && p.getColor().equals(piece.getColor())) return null;
-		} else { // sorts out diagonal here
-			return null;
-		}
-		
-		return successCoords;
+		long attacks = Attacks.rook(Bitboards.square(r, c), b.getOccupancy());
+		long target = Bitboards.bit(Bitboards.square(endR, endC));
+		// piece infront of destination, diagonal or capturing own color
+		if ((attacks & target & ~b.getColorBitboard(piece.getColorIndex())) == 0) return null;
+		return new Piece.Coords(endR, endC);
 	}
 	
 	/**
@@ -281,27 +262,69 @@ public abstract class Piece {
 	 */
 	public static Piece.Coords isValidDiagonalMove(Board b, Piece piece, int r, int c, int endR, int endC) {
 		if (!Piece.validLoc(r, c) || !Piece.validLoc(endR, endC)) return null;	
-		if (Math.abs(r - endR) != Math.abs(c - endC)) return null;
-		int directionC = endC > c ? 1 : -1;
-		int directionR = endR > r ? 1 : -1;
-		Piece p;
-		for (int iC = c + directionC, iR = r + directionR; iC != endC; iC += directionC, iR += directionR) { // check all cells between c and endC, skipping current cell
-			if (b.getTile(iR, iC) != null) return null; // piece infront of destination
-		}
-		
-		if ((p = b.getTile(endR, endC)) != null && p.getColor().equals(piece.getColor())) return null;
+		long attacks = Attacks.bishop(Bitboards.square(r, c), b.getOccupancy());
+		long target = Bitboards.bit(Bitboards.square(endR, endC));
+		// piece infront of destination, not diagonal or capturing own color
+		if ((attacks & target & ~b.getColorBitboard(piece.getColorIndex())) == 0) return null;
 		return new Piece.Coords(endR, endC);
 	}
 		
 	/**
-	 * Collects the possible coords this piece can move to.
+	 * Collects the possible coords this piece can move to. Adapter over generateMoves for the UI.
 	 * 
 	 * @param b board to check on
 	 * @param r current row this piece is in
 	 * @param c current column this piece is in
 	 * @return list of coordinates of the r and c's
 	 */
-	public abstract List<Coords> getPossibleMoves(Board b, int r, int c);
+	public List<Coords> getPossibleMoves(Board b, int r, int c) {
+		MoveList list = new MoveList();
+		this.generateMoves(b, Bitboards.square(r, c), list);
+		long targets = 0;
+		for (int i = 0; i < list.size(); i++) {
+			targets |= Bitboards.bit(Move.getTo(list.get(i)));
+		}
+		return Bitboards.toCoords(targets);
+	}
+	
+	/**
+	 * Adds the packed moves this piece can make to the list (see Move). Moves are pseudo-legal, they may
+	 * leave the king in check.
+	 * 
+	 * @param b board to check on
+	 * @param sq square this piece is on (r * 8 + c)
+	 * @param list list to add the moves to
+	 */
+	public void generateMoves(Board b, int sq, MoveList list) {
+		this.generateMoves(b, sq, list, -1L);
+	}
+
+	/**
+	 * Adds the packed moves this piece can make to the given squares to the list (see Move). Moves are
+	 * pseudo-legal, they may leave the king in check.
+	 * 
+	 * @param b board to check on
+	 * @param sq square this piece is on (r * 8 + c)
+	 * @param list list to add the moves to
+	 * @param targets bitboard of the squares moves may end on, -1 for all
+	 */
+	public abstract void generateMoves(Board b, int sq, MoveList list, long targets);
+	
+	/**
+	 * Adds a move from one square to each target, flagging the ones onto an occupied tile as captures.
+	 * 
+	 * @param b board to check on
+	 * @param from square the piece moves from
+	 * @param targets bitboard of squares to move to, without tiles of the piece's own color
+	 * @param list list to add the moves to
+	 */
+	protected static void addMoves(Board b, int from, long targets, MoveList list) {
+		long occ = b.getOccupancy();
+		for (; targets != 0; targets &= targets - 1) {
+			int to = Long.numberOfTrailingZeros(targets);
+			list.add(Move.encode(from, to, 0, (occ & Bitboards.bit(to)) != 0 ? Move.CAPTURE : 0));
+		}
+	}
 
 	/**
 	 * Finds whether or not the piece can move from one location to another location for a given board. Note castling returns (0, -1).
@@ -1,7 +1,5 @@
 package chess;
 
-import java.util.List;
-
 /**
  * Implementation of Piece class representing the queen.
  * 
@@ -12,17 +10,16 @@ public class Queen extends Piece {
 	/**
 	 * Constructs a new queen (name = "Q").
 	 * 
-	 * @param color what color the piece is (usually "Black" or "White")
+	 * @param color what color the piece is (Board.WHITE or Board.BLACK)
 	 */
-	Queen(String color) {
-		super(color, "Q");
+	Queen(int color) {
+		super(color, Board.QUEEN);
 	}
 
 	@Override
-	public List<Coords> getPossibleMoves(Board b, int r, int c) {
-		List<Coords> arr = Piece.getValidStraightMoves(b, this, r, c);
-		arr.addAll(Piece.getValidDiagonalMoves(b, this, r, c));
-		return arr;
+	public void generateMoves(Board b, int sq, MoveList list, long targets) {
+		long attacks = Attacks.queen(sq, b.getOccupancy());
+		Piece.addMoves(b, sq, attacks & targets & ~b.getColorBitboard(this.getColorIndex()), list);
 	}
 
 	@Override
@@ -0,0 +1,81 @@
+package chess;
+
+/**
+ * Zobrist holds the random 64-bit keys used to hash positions. A position's hash is the xor of the keys of
+ * its pieces, castling rights, en passant file and side to move, so a move updates it with a few xors.
+ * The keys come from a fixed seed so hashes are the same on every run and can be stored.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public final class Zobrist {
+	/** Key of each piece on each square, indexed by (color * 6 + type) * 64 + square. */
+	private static final long[] PIECE_SQUARE = new long[12 * 64];
+
+	/** Key of each combination of castling rights. */
+	private static final long[] CASTLING = new long[16];
+
+	/** Key of the en passant file. */
+	private static final long[] EN_PASSANT = new long[8];
+
+	/** Key xor'd in when it is black's turn. */
+	public static final long BLACK_TO_MOVE;
+
+	/** Added to the SplitMix64 state for each key. */
+	private static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+	static {
+		long state = 0x2545F4914F6CDD1DL;
+		for (int i = 0; i < PIECE_SQUARE.length; i++) PIECE_SQUARE[i] = mix(state += GAMMA);
+		for (int i = 0; i < CASTLING.length; i++) CASTLING[i] = mix(state += GAMMA);
+		for (int i = 0; i < EN_PASSANT.length; i++) EN_PASSANT[i] = mix(state += GAMMA);
+		BLACK_TO_MOVE = mix(state + GAMMA);
+	}
+
+	private Zobrist() {
+	}
+
+	/**
+	 * The output function of the SplitMix64 generator, whose state advances by GAMMA for each value.
+	 *
+	 * @param state generator state
+	 * @return pseudo-random value
+	 */
+	private static long mix(long state) {
+		long z = state;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Key of a piece on a square.
+	 *
+	 * @param piece color * 6 + type
+	 * @param sq square index (r * 8 + c)
+	 * @return the key
+	 */
+	public static long piece(int piece, int sq) {
+		return PIECE_SQUARE[(piece << 6) | sq];
+	}
+
+	/**
+	 * Key of a combination of castling rights.
+	 *
+	 * @param rights castling rights bits
+	 * @return the key
+	 */
+	public static long castling(int rights) {
+		return CASTLING[rights];
+	}
+
+	/**
+	 * Key of an en passant file.
+	 *
+	 * @param col column of the en passant square
+	 * @return the key
+	 */
+	public static long enPassant(int col) {
+		return EN_PASSANT[col];
+	}
+}
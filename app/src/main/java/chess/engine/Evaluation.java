@@ -0,0 +1,239 @@
+package chess.engine;
+
+import chess.Board;
+
+/**
+ * Evaluation scores a position by material and piece-square tables, in centipawns from the point of view
+ * of the side to move.
+ * Every piece has a middlegame and an endgame value (material plus square bonus). Board keeps the sums
+ * of both and the game phase up to date as pieces are put and removed, so scoring a position only blends
+ * the two sums by how much material is left and does not look at the pieces. Pawn structure terms come
+ * from a PawnTable.
+ * The tables are written from white's side with rank 8 first, so they read like the board; black's
+ * pieces use the same tables mirrored top to bottom.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public final class Evaluation {
+	/** Material value of each piece type, indexed by Board.PAWN to Board.KING. */
+	public static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 0};
+
+	/** Material value of each piece type in the endgame, indexed by Board.PAWN to Board.KING. */
+	private static final int[] ENDGAME_PIECE_VALUES = {120, 300, 320, 520, 940, 0};
+
+	/** Game phase each piece type counts for, indexed by Board.PAWN to Board.KING. */
+	private static final int[] PHASE_WEIGHTS = {0, 1, 1, 2, 4, 0};
+
+	/** Endgame bonus of a passed pawn with no piece in front of it. */
+	private static final int FREE_PASSER = 20;
+
+	/** Phase of the starting position, a position with this much or more is scored as a middlegame. */
+	public static final int MAX_PHASE = 24;
+
+	/** Middlegame bonus of each piece type on each square, indexed by type then square (r * 8 + c). */
+	private static final int[][] PIECE_SQUARE = {
+		{ // pawn
+			  0,   0,   0,   0,   0,   0,   0,   0,
+			 50,  50,  50,  50,  50,  50,  50,  50,
+			 10,  10,  20,  30,  30,  20,  10,  10,
+			  5,   5,  10,  25,  25,  10,   5,   5,
+			  0,   0,   0,  20,  20,   0,   0,   0,
+			  5,  -5, -10,   0,   0, -10,  -5,   5,
+			  5,  10,  10, -20, -20,  10,  10,   5,
+			  0,   0,   0,   0,   0,   0,   0,   0,
+		},
+		{ // knight
+			-50, -40, -30, -30, -30, -30, -40, -50,
+			-40, -20,   0,   0,   0,   0, -20, -40,
+			-30,   0,  10,  15,  15,  10,   0, -30,
+			-30,   5,  15,  20,  20,  15,   5, -30,
+			-30,   0,  15,  20,  20,  15,   0, -30,
+			-30,   5,  10,  15,  15,  10,   5, -30,
+			-40, -20,   0,   5,   5,   0, -20, -40,
+			-50, -40, -30, -30, -30, -30, -40, -50,
+		},
+		{ // bishop
+			-20, -10, -10, -10, -10, -10, -10, -20,
+			-10,   0,   0,   0,   0,   0,   0, -10,
+			-10,   0,   5,  10,  10,   5,   0, -10,
+			-10,   5,   5,  10,  10,   5,   5, -10,
+			-10,   0,  10,  10,  10,  10,   0, -10,
+			-10,  10,  10,  10,  10,  10,  10, -10,
+			-10,   5,   0,   0,   0,   0,   5, -10,
+			-20, -10, -10, -10, -10, -10, -10, -20,
+		},
+		{ // rook
+			  0,   0,   0,   0,   0,   0,   0,   0,
+			  5,  10,  10,  10,  10,  10,  10,   5,
+			 -5,   0,   0,   0,   0,   0,   0,  -5,
+			 -5,   0,   0,   0,   0,   0,   0,  -5,
+			 -5,   0,   0,   0,   0,   0,   0,  -5,
+			 -5,   0,   0,   0,   0,   0,   0,  -5,
+			 -5,   0,   0,   0,   0,   0,   0,  -5,
+			  0,   0,   0,   5,   5,   0,   0,   0,
+		},
+		{ // queen
+			-20, -10, -10,  -5,  -5, -10, -10, -20,
+			-10,   0,   0,   0,   0,   0,   0, -10,
+			-10,   0,   5,   5,   5,   5,   0, -10,
+			 -5,   0,   5,   5,   5,   5,   0,  -5,
+			  0,   0,   5,   5,   5,   5,   0,  -5,
+			-10,   5,   5,   5,   5,   5,   0, -10,
+			-10,   0,   5,   0,   0,   0,   0, -10,
+			-20, -10, -10,  -5,  -5, -10, -10, -20,
+		},
+		{ // king, stay behind the pawns
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-20, -30, -30, -40, -40, -30, -30, -20,
+			-10, -20, -20, -20, -20, -20, -20, -10,
+			 20,  20,   0,   0,   0,   0,  20,  20,
+			 20,  30,  10,   0,   0,  10,  30,  20,
+		},
+	};
+
+	/**
+	 * Endgame bonus of each piece type on each square, as PIECE_SQUARE. Pawns gain more the closer they are
+	 * to promoting and the king comes to the centre, the other pieces keep their middlegame tables.
+	 */
+	private static final int[][] ENDGAME_PIECE_SQUARE = {
+		{ // pawn
+			  0,   0,   0,   0,   0,   0,   0,   0,
+			 80,  80,  80,  80,  80,  80,  80,  80,
+			 50,  50,  50,  50,  50,  50,  50,  50,
+			 30,  30,  30,  30,  30,  30,  30,  30,
+			 15,  15,  15,  15,  15,  15,  15,  15,
+			  5,   5,   5,   5,   5,   5,   5,   5,
+			  0,   0,   0,   0,   0,   0,   0,   0,
+			  0,   0,   0,   0,   0,   0,   0,   0,
+		},
+		PIECE_SQUARE[Board.KNIGHT],
+		PIECE_SQUARE[Board.BISHOP],
+		PIECE_SQUARE[Board.ROOK],
+		PIECE_SQUARE[Board.QUEEN],
+		{ // king, come to the centre
+			-50, -40, -30, -20, -20, -30, -40, -50,
+			-30, -20, -10,   0,   0, -10, -20, -30,
+			-30, -10,  20,  30,  30,  20, -10, -30,
+			-30, -10,  30,  40,  40,  30, -10, -30,
+			-30, -10,  30,  40,  40,  30, -10, -30,
+			-30, -10,  20,  30,  30,  20, -10, -30,
+			-30, -30,   0,   0,   0,   0, -30, -30,
+			-50, -30, -30, -30, -30, -30, -30, -50,
+		},
+	};
+
+	/**
+	 * Material plus square bonus of each piece on each square, for white positive and for black negative,
+	 * indexed by color * 6 + type then square.
+	 */
+	private static final int[][] MIDDLEGAME = new int[12][64];
+	private static final int[][] ENDGAME = new int[12][64];
+
+	static {
+		for (int type = Board.PAWN; type <= Board.KING; type++) {
+			for (int sq = 0; sq < 64; sq++) {
+				MIDDLEGAME[Board.WHITE * 6 + type][sq] = PIECE_VALUES[type] + PIECE_SQUARE[type][sq];
+				MIDDLEGAME[Board.BLACK * 6 + type][sq] = -PIECE_VALUES[type] - PIECE_SQUARE[type][sq ^ 56];
+				ENDGAME[Board.WHITE * 6 + type][sq] = ENDGAME_PIECE_VALUES[type] + ENDGAME_PIECE_SQUARE[type][sq];
+				ENDGAME[Board.BLACK * 6 + type][sq] = -ENDGAME_PIECE_VALUES[type] - ENDGAME_PIECE_SQUARE[type][sq ^ 56];
+			}
+		}
+	}
+
+	private Evaluation() {
+	}
+
+	/**
+	 * Middlegame value of a piece on a square, added to Board's running total when the piece is put there.
+	 *
+	 * @param piece color * 6 + type
+	 * @param sq square index (r * 8 + c)
+	 * @return centipawns, positive for white and negative for black
+	 */
+	public static int middlegame(int piece, int sq) {
+		return MIDDLEGAME[piece][sq];
+	}
+
+	/**
+	 * Endgame value of a piece on a square, added to Board's running total when the piece is put there.
+	 *
+	 * @param piece color * 6 + type
+	 * @param sq square index (r * 8 + c)
+	 * @return centipawns, positive for white and negative for black
+	 */
+	public static int endgame(int piece, int sq) {
+		return ENDGAME[piece][sq];
+	}
+
+	/**
+	 * How much a piece type counts towards the game phase.
+	 *
+	 * @param type Board.PAWN to Board.KING
+	 * @return phase weight, 0 for pawns and kings
+	 */
+	public static int phase(int type) {
+		return PHASE_WEIGHTS[type];
+	}
+
+	/**
+	 * Scores a position by material and squares alone, from Board's running totals: the middlegame and
+	 * endgame scores blended by the phase, a full board is scored as a middlegame and a board of kings and
+	 * pawns as an endgame.
+	 *
+	 * @param b board to score
+	 * @return score in centipawns, positive if the side to move is better
+	 */
+	public static int evaluate(Board b) {
+		int phase = Math.min(b.getPhase(), MAX_PHASE);
+		int score = (b.getMiddlegameScore() * phase + b.getEndgameScore() * (MAX_PHASE - phase)) / MAX_PHASE;
+		return b.getSideToMove() == Board.WHITE ? score : -score;
+	}
+
+	/**
+	 * Scores a position from Board's running totals and the pawn structure, which is looked up in a pawn
+	 * table and only scored when the pawns are not found there.
+	 * Passed pawns whose way to promotion is clear of pieces get a further bonus in the endgame, which
+	 * depends on the other pieces so is not cached.
+	 *
+	 * @param b board to score
+	 * @param pawns table of pawn structure scores
+	 * @return score in centipawns, positive if the side to move is better
+	 */
+	public static int evaluate(Board b, PawnTable pawns) {
+		int entry = pawns.probe(b);
+		int mg = b.getMiddlegameScore() + pawns.getMiddlegame(entry);
+		int eg = b.getEndgameScore() + pawns.getEndgame(entry);
+		long occupied = b.getOccupancy();
+		for (long passed = pawns.getPassedPawns(entry); passed != 0; passed &= passed - 1) {
+			int sq = Long.numberOfTrailingZeros(passed);
+			int color = (b.getPieceBitboard(Board.WHITE, Board.PAWN) & (1L << sq)) != 0 ? Board.WHITE : Board.BLACK;
+			if ((PawnTable.frontSpan(color, sq) & occupied) == 0) eg += color == Board.WHITE ? FREE_PASSER : -FREE_PASSER;
+		}
+		int phase = Math.min(b.getPhase(), MAX_PHASE);
+		int score = (mg * phase + eg * (MAX_PHASE - phase)) / MAX_PHASE;
+		return b.getSideToMove() == Board.WHITE ? score : -score;
+	}
+
+	/**
+	 * Scores a position by looking at every piece, for checking Board's running totals.
+	 *
+	 * @param b board to score
+	 * @return middlegame score, endgame score and phase, scores positive if white is better
+	 */
+	public static int[] evaluateFromScratch(Board b) {
+		int[] totals = new int[3];
+		for (int piece = 0; piece < 12; piece++) {
+			for (long bb = b.getPieceBitboard(piece / 6, piece % 6); bb != 0; bb &= bb - 1) {
+				int sq = Long.numberOfTrailingZeros(bb);
+				totals[0] += MIDDLEGAME[piece][sq];
+				totals[1] += ENDGAME[piece][sq];
+				totals[2] += PHASE_WEIGHTS[piece % 6];
+			}
+		}
+		return totals;
+	}
+}
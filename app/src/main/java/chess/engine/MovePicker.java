@@ -0,0 +1,188 @@
+package chess.engine;
+
+import chess.Board;
+import chess.Move;
+import chess.MoveList;
+
+/**
+ * MovePicker hands out the legal moves of a position one at a time, in the order most likely to cause
+ * a cutoff: the hash move, captures by most valuable victim and least valuable attacker, the killer moves,
+ * the quiet moves by their history score, and last the captures which lose material by Board.see.
+ * Each stage is only generated once the stages before it are used up, so a node which cuts off on the
+ * hash move or a capture never generates its quiet moves.
+ * For quiescence search only the captures which do not lose material are handed out.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+final class MovePicker {
+	/** Stages, in the order they are used. */
+	private static final int STAGE_HASH = 0;
+	private static final int STAGE_GENERATE_CAPTURES = 1;
+	private static final int STAGE_CAPTURES = 2;
+	private static final int STAGE_KILLERS = 3;
+	private static final int STAGE_GENERATE_QUIETS = 4;
+	private static final int STAGE_QUIETS = 5;
+	private static final int STAGE_BAD_CAPTURES = 6;
+	private static final int STAGE_DONE = 7;
+
+	/** Moves of the current stage and their scores. */
+	private final MoveList moves = new MoveList();
+	private final int[] scores = new int[MoveList.MAX_MOVES];
+
+	/** Captures which lose material, put off until after the quiet moves. */
+	private final MoveList badCaptures = new MoveList();
+
+	/** Whether only the captures and promotions which do not lose material are wanted. */
+	private boolean quiescence;
+
+	private Board board;
+	private int hashMove;
+	private int killer1;
+	private int killer2;
+
+	/** History scores, and the offset of the side to move's scores in them. */
+	private int[] history;
+	private int historyOffset;
+
+	private int stage;
+
+	/** Next move of the current stage to look at. */
+	private int index;
+
+	/**
+	 * Starts picking the moves of a position.
+	 *
+	 * @param board position to pick moves of
+	 * @param hashMove move from the transposition table, Move.NONE if none (need not be legal)
+	 * @param killer1 first killer move of this ply, Move.NONE if none (need not be legal)
+	 * @param killer2 second killer move of this ply, Move.NONE if none (need not be legal)
+	 * @param history history scores, indexed by color * 4096 + to * 64 + from
+	 */
+	void init(Board board, int hashMove, int killer1, int killer2, int[] history) {
+		this.board = board;
+		this.hashMove = hashMove;
+		this.killer1 = killer1;
+		this.killer2 = killer2;
+		this.history = history;
+		this.historyOffset = board.getSideToMove() << 12;
+		this.quiescence = false;
+		this.badCaptures.clear();
+		this.stage = STAGE_HASH;
+	}
+
+	/**
+	 * Starts picking the captures and promotions of a position which do not lose material, for
+	 * quiescence search.
+	 *
+	 * @param board position to pick moves of
+	 */
+	void initQuiescence(Board board) {
+		this.board = board;
+		this.hashMove = Move.NONE;
+		this.quiescence = true;
+		this.stage = STAGE_GENERATE_CAPTURES;
+	}
+
+	/**
+	 * The next move to search.
+	 *
+	 * @return packed move, Move.NONE once every legal move has been returned
+	 */
+	// each stage falls through to the next once it has no more moves, on purpose
+	@SuppressWarnings("fallthrough")
+	int next() {
+		switch (this.stage) {
+			case STAGE_HASH:
+				this.stage = STAGE_GENERATE_CAPTURES;
+				if (this.board.isLegal(this.hashMove)) return this.hashMove;
+				// fall through
+			case STAGE_GENERATE_CAPTURES:
+				this.moves.clear();
+				this.board.generateLegalCaptures(this.moves);
+				for (int i = 0; i < this.moves.size(); i++) this.scores[i] = this.captureScore(this.moves.get(i));
+				this.index = 0;
+				this.stage = STAGE_CAPTURES;
+				// fall through
+			case STAGE_CAPTURES:
+				while (this.index < this.moves.size()) {
+					int move = this.pickBest();
+					if (move == this.hashMove) continue;
+					if (this.board.see(move) >= 0) return move;
+					if (!this.quiescence) this.badCaptures.add(move);
+				}
+				if (this.quiescence) {
+					this.stage = STAGE_DONE;
+					return Move.NONE;
+				}
+				this.index = 0;
+				this.stage = STAGE_KILLERS;
+				// fall through
+			case STAGE_KILLERS:
+				while (this.index < 2) {
+					int killer = this.index++ == 0 ? this.killer1 : this.killer2;
+					if (killer != this.hashMove && this.board.isLegal(killer)) return killer;
+				}
+				this.stage = STAGE_GENERATE_QUIETS;
+				// fall through
+			case STAGE_GENERATE_QUIETS:
+				this.moves.clear();
+				this.board.generateLegalQuiets(this.moves);
+				for (int i = 0; i < this.moves.size(); i++) {
+					int move = this.moves.get(i);
+					this.scores[i] = this.history[this.historyOffset | (move & 0xFFF)];
+				}
+				this.index = 0;
+				this.stage = STAGE_QUIETS;
+				// fall through
+			case STAGE_QUIETS:
+				while (this.index < this.moves.size()) {
+					int move = this.pickBest();
+					if (move != this.hashMove && move != this.killer1 && move != this.killer2) return move;
+				}
+				this.index = 0;
+				this.stage = STAGE_BAD_CAPTURES;
+				// fall through
+			case STAGE_BAD_CAPTURES:
+				if (this.index < this.badCaptures.size()) return this.badCaptures.get(this.index++);
+				this.stage = STAGE_DONE;
+				// fall through
+			default:
+				return Move.NONE;
+		}
+	}
+
+	/**
+	 * Swaps the highest scored move left in the stage to the front and returns it. Picking one move at a
+	 * time instead of sorting costs nothing when the first few moves cut off.
+	 *
+	 * @return the best move left
+	 */
+	private int pickBest() {
+		int best = this.index;
+		for (int i = this.index + 1; i < this.moves.size(); i++) {
+			if (this.scores[i] > this.scores[best]) best = i;
+		}
+		int move = this.moves.get(best);
+		this.moves.set(best, this.moves.get(this.index));
+		this.scores[best] = this.scores[this.index];
+		this.index++;
+		return move;
+	}
+
+	/**
+	 * MVV-LVA score of a capture or promotion: the most valuable victim first, and of those the least
+	 * valuable attacker first.
+	 *
+	 * @param move packed move
+	 * @return ordering score, higher first
+	 */
+	private int captureScore(int move) {
+		int score = Move.getPromotion(move) == Board.QUEEN ? 64 : 0;
+		if (Move.isCapture(move)) {
+			int victim = Move.isEnPassant(move) ? Board.PAWN : this.board.getPieceType(Move.getTo(move));
+			score += victim * 8 - this.board.getPieceType(Move.getFrom(move)) + 8;
+		}
+		return score;
+	}
+}
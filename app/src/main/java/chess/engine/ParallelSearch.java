@@ -0,0 +1,191 @@
+package chess.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import chess.Board;
+import chess.Move;
+import chess.tablebase.Tablebase;
+
+/**
+ * ParallelSearch runs a Lazy SMP search: every thread searches the same position with its own Search,
+ * Board copy and move ordering state, and the threads only share the TranspositionTable. Helper threads
+ * speed up the main thread by filling the table with results it can cut off on.
+ * The main thread decides when to stop (depth, nodes or time), the helpers are stopped with it. The move
+ * played is that of the thread which completed the deepest iteration.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public class ParallelSearch {
+	/** Table shared by all threads. */
+	private final TranspositionTable tt;
+
+	/** Engine of each thread, the main thread's first. */
+	private final Search[] workers;
+
+	/** Threads running the helpers, null if there is only the main thread. */
+	private final ExecutorService pool;
+
+	/** Book consulted before searching, null if none. */
+	private OpeningBook book;
+
+	/** Thread whose move was chosen in the last search. */
+	private int chosen;
+
+	/**
+	 * Creates a parallel search.
+	 *
+	 * @param threads number of threads, the calling thread included (at least 1)
+	 * @param hashMegabytes size of the shared table in MB
+	 */
+	public ParallelSearch(int threads, int hashMegabytes) {
+		if (threads < 1) throw new IllegalArgumentException("threads must be at least 1 but was: " + threads);
+		this.tt = new TranspositionTable(hashMegabytes);
+		this.workers = new Search[threads];
+		for (int i = 0; i < threads; i++) this.workers[i] = new Search(this.tt, i);
+		this.pool = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1, r -> {
+			Thread t = new Thread(r, "search-helper");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * Searches a position on all threads, see Search.search. If the position is in the opening book or the
+	 * tablebases the move is taken from there without searching.
+	 *
+	 * @param board position to search (left unchanged)
+	 * @param maxDepth maximum depth of the main thread in plies, helpers search one ply more
+	 * @param nodeLimit nodes each thread may visit
+	 * @param time time limits of the search, null for none
+	 * @return best move found, Move.NONE if the side to move has no legal move
+	 */
+	public int search(Board board, int maxDepth, long nodeLimit, TimeManager time) {
+		int known = this.book == null ? Move.NONE : this.book.probe(board);
+		int knownScore = 0;
+		if (known == Move.NONE && (known = this.workers[0].probeRoot(board)) != Move.NONE) {
+			knownScore = this.workers[0].getScore();
+		}
+		if (known != Move.NONE) {
+			for (Search w : this.workers) w.useMove(known, knownScore);
+			this.chosen = 0;
+			return known;
+		}
+		this.tt.newSearch();
+		// helpers go one ply past the main thread so their entries are still of use to its last iteration
+		final int helperDepth = Math.min(maxDepth + 1, Search.MAX_PLY - 1);
+		List<Future<?>> helpers = new ArrayList<>();
+		for (int i = 1; i < this.workers.length; i++) {
+			final Search worker = this.workers[i];
+			final Board copy = board.copy();
+			worker.stopRequested = false;
+			helpers.add(this.pool.submit(() -> worker.run(copy, helperDepth, nodeLimit, null)));
+		}
+
+		this.workers[0].stopRequested = false;
+		this.workers[0].run(board, maxDepth, nodeLimit, time);
+
+		for (int i = 1; i < this.workers.length; i++) this.workers[i].stop();
+		for (Future<?> helper : helpers) {
+			try {
+				helper.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Search thread failed", e.getCause());
+			}
+		}
+
+		this.chosen = 0;
+		for (int i = 1; i < this.workers.length; i++) {
+			Search w = this.workers[i];
+			if (w.getDepth() > this.workers[this.chosen].getDepth() && w.getBestMove() != Move.NONE) this.chosen = i;
+		}
+		return this.workers[this.chosen].getBestMove();
+	}
+
+	/**
+	 * Sets the opening book to play from before searching.
+	 *
+	 * @param book opening book, null to always search
+	 */
+	public void setOpeningBook(OpeningBook book) {
+		this.book = book;
+	}
+
+	/**
+	 * Sets the endgame tables every thread scores positions from.
+	 *
+	 * @param tablebase tablebases, null to always search
+	 */
+	public void setTablebase(Tablebase tablebase) {
+		for (Search w : this.workers) w.setTablebase(tablebase);
+	}
+
+	/**
+	 * Empties the shared table, so the next search starts from scratch.
+	 */
+	public void clearHash() {
+		this.tt.clear();
+	}
+
+	/**
+	 * Stops the helper threads for good.
+	 */
+	public void shutdown() {
+		if (this.pool != null) this.pool.shutdownNow();
+	}
+
+	/**
+	 * Number of threads searching.
+	 *
+	 * @return thread count, the calling thread included
+	 */
+	public int getThreads() {
+		return this.workers.length;
+	}
+
+	/**
+	 * Score of the move returned by the last search.
+	 *
+	 * @return centipawns from the side to move's point of view, or Board.MATE - n for mate in n plies
+	 */
+	public int getScore() {
+		return this.workers[this.chosen].getScore();
+	}
+
+	/**
+	 * Depth of the iteration the move returned by the last search came from.
+	 *
+	 * @return depth in plies
+	 */
+	public int getDepth() {
+		return this.workers[this.chosen].getDepth();
+	}
+
+	/**
+	 * Nodes one thread visited in the last search.
+	 *
+	 * @param thread thread number, 0 for the main thread
+	 * @return number of positions visited
+	 */
+	public long getNodes(int thread) {
+		return this.workers[thread].getNodes();
+	}
+
+	/**
+	 * Nodes all threads visited in the last search.
+	 *
+	 * @return number of positions visited
+	 */
+	public long getNodes() {
+		long nodes = 0;
+		for (Search w : this.workers) nodes += w.getNodes();
+		return nodes;
+	}
+}
@@ -0,0 +1,247 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+import chess.Board;
+import chess.Bitboards;
+
+/**
+ * A fixed-size hash table of pawn structure evaluations keyed by Board.pawnHash().
+ * The pawn terms (doubled, isolated, backward and passed pawns) only depend on where the pawns are, and
+ * most moves do not move a pawn, so nearly every position of a search finds its pawns already scored.
+ * Each entry holds the middlegame and endgame pawn scores and the passed pawns of both colors.
+ * A table belongs to one search thread, entries are replaced whenever another structure maps to them.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public final class PawnTable {
+	/** Penalty for each pawn with a pawn of its own color in front of it, middlegame and endgame. */
+	private static final int DOUBLED_MG = -10;
+	private static final int DOUBLED_EG = -20;
+
+	/** Penalty for each pawn with no pawn of its own color on the files next to it. */
+	private static final int ISOLATED_MG = -10;
+	private static final int ISOLATED_EG = -15;
+
+	/**
+	 * Penalty for each pawn which is behind the pawns of its own color on the files next to it and cannot
+	 * safely advance, as an enemy pawn attacks the square in front of it.
+	 */
+	private static final int BACKWARD_MG = -8;
+	private static final int BACKWARD_EG = -12;
+
+	/** Bonus for a passed pawn, indexed by the ranks it has advanced from its own side (1 to 6). */
+	private static final int[] PASSED_MG = {0, 5, 5, 10, 20, 30, 50, 0};
+	private static final int[] PASSED_EG = {0, 10, 15, 25, 40, 60, 90, 0};
+
+	/** Squares in front of a pawn on its own and the next files, indexed by color * 64 + square. */
+	private static final long[] PASSED_MASKS = new long[128];
+
+	/** Squares on the next files level with or behind a pawn, indexed by color * 64 + square. */
+	private static final long[] SUPPORT_MASKS = new long[128];
+
+	/** Squares in front of a pawn on its own file, indexed by color * 64 + square. */
+	private static final long[] FRONT_MASKS = new long[128];
+
+	static {
+		for (int sq = 0; sq < 64; sq++) {
+			int r = Bitboards.row(sq);
+			long file = Bitboards.FILE_A << Bitboards.col(sq);
+			long files = file | ((file << 1) & ~Bitboards.FILE_A) | ((file >>> 1) & ~Bitboards.FILE_H);
+			long aboveRow = (1L << (r * 8)) - 1;
+			long belowRow = r == 7 ? 0 : -1L << ((r + 1) * 8);
+			PASSED_MASKS[Board.WHITE * 64 + sq] = files & aboveRow;
+			PASSED_MASKS[Board.BLACK * 64 + sq] = files & belowRow;
+			SUPPORT_MASKS[Board.WHITE * 64 + sq] = files & ~file & ~aboveRow;
+			SUPPORT_MASKS[Board.BLACK * 64 + sq] = files & ~file & ~belowRow;
+			FRONT_MASKS[Board.WHITE * 64 + sq] = file & aboveRow;
+			FRONT_MASKS[Board.BLACK * 64 + sq] = file & belowRow;
+		}
+	}
+
+	/** Pawn hash of each entry. */
+	private final long[] keys;
+
+	/** Scores of each entry, positive if white is better. */
+	private final int[] middlegame;
+	private final int[] endgame;
+
+	/** Passed pawns of both colors of each entry. */
+	private final long[] passed;
+
+	/** Number of entries minus one, used to index by the low bits of the key. */
+	private final int mask;
+
+	/** Lookups and lookups which found their entry, since the statistics were last reset. */
+	private long probes;
+	private long hits;
+
+	/**
+	 * Creates a table with the given number of entries, rounded down to a power of two.
+	 *
+	 * @param entries number of entries (at least 1)
+	 */
+	public PawnTable(int entries) {
+		if (entries < 1) throw new IllegalArgumentException("entries must be at least 1 but was: " + entries);
+		int size = Integer.highestOneBit(entries);
+		this.keys = new long[size];
+		this.middlegame = new int[size];
+		this.endgame = new int[size];
+		this.passed = new long[size];
+		this.mask = size - 1;
+		this.clear();
+	}
+
+	/**
+	 * Empties the table and resets the statistics.
+	 */
+	public void clear() {
+		// a key no pawn structure hashes to in practice, so empty entries are never hit
+		Arrays.fill(this.keys, -1L);
+		this.resetStatistics();
+	}
+
+	/**
+	 * Looks up the pawn structure of a position, scoring it and storing it if it is not in the table.
+	 *
+	 * @param b position to look up
+	 * @return index of the entry, read with getMiddlegame, getEndgame and getPassedPawns
+	 */
+	public int probe(Board b) {
+		long key = b.pawnHash();
+		int index = (int) key & this.mask;
+		this.probes++;
+		if (this.keys[index] == key) {
+			this.hits++;
+		} else {
+			this.keys[index] = key;
+			this.evaluate(index, b.getPieceBitboard(Board.WHITE, Board.PAWN), b.getPieceBitboard(Board.BLACK, Board.PAWN));
+		}
+		return index;
+	}
+
+	/**
+	 * Middlegame pawn structure score of an entry.
+	 *
+	 * @param index entry returned by probe
+	 * @return centipawns, positive if white is better
+	 */
+	public int getMiddlegame(int index) {
+		return this.middlegame[index];
+	}
+
+	/**
+	 * Endgame pawn structure score of an entry.
+	 *
+	 * @param index entry returned by probe
+	 * @return centipawns, positive if white is better
+	 */
+	public int getEndgame(int index) {
+		return this.endgame[index];
+	}
+
+	/**
+	 * Passed pawns of an entry, pawns with no enemy pawn in front of them on their own or the next files.
+	 *
+	 * @param index entry returned by probe
+	 * @return bitboard of the passed pawns of both colors
+	 */
+	public long getPassedPawns(int index) {
+		return this.passed[index];
+	}
+
+	/**
+	 * Squares in front of a pawn on its own file, the path it takes to promote.
+	 *
+	 * @param color color of the pawn
+	 * @param sq square of the pawn
+	 * @return bitboard of the squares
+	 */
+	public static long frontSpan(int color, int sq) {
+		return FRONT_MASKS[color * 64 + sq];
+	}
+
+	/**
+	 * Number of lookups since the statistics were last reset.
+	 *
+	 * @return lookups
+	 */
+	public long getProbes() {
+		return this.probes;
+	}
+
+	/**
+	 * Number of lookups which found their pawn structure since the statistics were last reset.
+	 *
+	 * @return hits
+	 */
+	public long getHits() {
+		return this.hits;
+	}
+
+	/**
+	 * Share of lookups which found their pawn structure since the statistics were last reset.
+	 *
+	 * @return hit rate between 0 and 1, 0 if there were no lookups
+	 */
+	public double getHitRate() {
+		return this.probes == 0 ? 0 : (double) this.hits / this.probes;
+	}
+
+	/**
+	 * Sets the lookup and hit counts back to 0, keeping the entries.
+	 */
+	public void resetStatistics() {
+		this.probes = 0;
+		this.hits = 0;
+	}
+
+	/**
+	 * Scores a pawn structure into an entry.
+	 *
+	 * @param index entry to fill
+	 * @param white bitboard of the white pawns
+	 * @param black bitboard of the black pawns
+	 */
+	private void evaluate(int index, long white, long black) {
+		int mg = 0;
+		int eg = 0;
+		long passedPawns = 0;
+		for (int color = Board.WHITE; color <= Board.BLACK; color++) {
+			long own = color == Board.WHITE ? white : black;
+			long enemy = color == Board.WHITE ? black : white;
+			long enemyAttacks = Bitboards.pawnAttacks(enemy, color ^ 1);
+			int sign = color == Board.WHITE ? 1 : -1;
+			for (long pawns = own; pawns != 0; pawns &= pawns - 1) {
+				int sq = Long.numberOfTrailingZeros(pawns);
+				int i = color * 64 + sq;
+				long file = Bitboards.FILE_A << Bitboards.col(sq);
+				boolean doubled = (FRONT_MASKS[i] & own) != 0;
+				if (doubled) {
+					mg += sign * DOUBLED_MG;
+					eg += sign * DOUBLED_EG;
+				}
+				if ((own & ((file << 1) & ~Bitboards.FILE_A | (file >>> 1) & ~Bitboards.FILE_H)) == 0) {
+					mg += sign * ISOLATED_MG;
+					eg += sign * ISOLATED_EG;
+				} else if ((own & SUPPORT_MASKS[i]) == 0) {
+					int stop = color == Board.WHITE ? sq - 8 : sq + 8;
+					if ((enemyAttacks & Bitboards.bit(stop)) != 0) {
+						mg += sign * BACKWARD_MG;
+						eg += sign * BACKWARD_EG;
+					}
+				}
+				if (!doubled && (PASSED_MASKS[i] & enemy) == 0) {
+					int advanced = color == Board.WHITE ? 7 - Bitboards.row(sq) : Bitboards.row(sq);
+					mg += sign * PASSED_MG[advanced];
+					eg += sign * PASSED_EG[advanced];
+					passedPawns |= Bitboards.bit(sq);
+				}
+			}
+		}
+		this.middlegame[index] = mg;
+		this.endgame[index] = eg;
+		this.passed[index] = passedPawns;
+	}
+}
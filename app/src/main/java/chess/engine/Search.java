@@ -0,0 +1,626 @@
+package chess.engine;
+
+import chess.Board;
+import chess.Move;
+import chess.MoveList;
+import chess.tablebase.Tablebase;
+
+/**
+ * Search finds the best move of a position with a negamax alpha-beta search over Board.makeMove and
+ * unmakeMove. At the leaves a quiescence search plays out the captures until the position is quiet, and
+ * scores it with Evaluation. Results are kept in a TranspositionTable, whose best
+ * moves are searched first on the next visit. Moves come from a MovePicker per ply, ordered by the
+ * table, killer moves and a history of the quiet moves which caused cutoffs.
+ * The search deepens one ply at a time and stops when its node budget or the time given by a
+ * TimeManager runs out. The move returned is always the best move of the last completed iteration.
+ * Positions in the endgame tablebases are scored from the tables instead of being searched.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public class Search {
+	/** Larger than any score. */
+	public static final int INFINITY = 32000;
+
+	/** Deepest ply searched. */
+	public static final int MAX_PLY = 64;
+
+	/** Scores beyond this are mates, found by the search or up to 256 plies further in the tablebases. */
+	private static final int MATE_BOUND = Board.MATE - MAX_PLY - 256;
+
+	/** Nodes between checks of the clock. */
+	private static final int TIME_CHECK_NODES = 1024;
+
+	/** Branching factor assumed before two iterations have completed. */
+	private static final double DEFAULT_BRANCHING_FACTOR = 6;
+
+	/** Margin over the captured piece's value within which delta pruning still searches a capture. */
+	private static final int DELTA_MARGIN = 200;
+
+	/** History scores are halved once one passes this, so recent cutoffs count the most. */
+	private static final int HISTORY_LIMIT = 1 << 20;
+
+	/** Entries of each engine's pawn table, about 200 KB. */
+	private static final int PAWN_TABLE_ENTRIES = 1 << 13;
+
+	/** Table shared by every search of this engine, and by every thread of a ParallelSearch. */
+	private final TranspositionTable tt;
+
+	/** Thread number within a ParallelSearch, 0 for the main thread. */
+	private final int id;
+
+	/** Move picker of each ply. */
+	private final MovePicker[] pickers = new MovePicker[MAX_PLY];
+
+	/** Two quiet moves per ply which last caused a cutoff at that ply. */
+	private final int[][] killers = new int[MAX_PLY][2];
+
+	/** How often each quiet move caused a cutoff, weighted by depth, indexed by color * 4096 + to * 64 + from. */
+	private final int[] history = new int[2 * 64 * 64];
+
+	/** Cutoffs in the current search, and how many of them came from the first move searched. */
+	private long cutoffs;
+	private long firstMoveCutoffs;
+
+	/** Pawn structure scores, kept between searches as the pawns change little from move to move. */
+	private final PawnTable pawns = new PawnTable(PAWN_TABLE_ENTRIES);
+
+	/** Book consulted before searching, null if none. */
+	private OpeningBook book;
+
+	/** Endgame tables consulted before searching a position, null if none. */
+	private Tablebase tablebase;
+
+	/** Scratch arrays for tablebase lookups, so probing does not allocate. */
+	private final int[] tablebasePieces = new int[Tablebase.MAX_PIECES];
+	private final int[] tablebaseSquares = new int[Tablebase.MAX_PIECES];
+
+	/** Positions of the current search scored from the tablebases. */
+	private long tablebaseHits;
+
+	/** Undo record of each ply. */
+	private final Board.UndoInfo[] undos = new Board.UndoInfo[MAX_PLY];
+
+	/** Board being searched, a copy of the one given to search. */
+	private Board board;
+
+	/** Nodes visited by the current search. */
+	private long nodes;
+
+	/** Nodes the current search may visit. */
+	private long nodeLimit;
+
+	/** Nodes left until the clock and stop requests are checked again. */
+	private int timeCheckCountdown;
+
+	/** Time limits of the current search, null if not timed. */
+	private TimeManager time;
+
+	/** Set once the node budget or time runs out, every score after that is meaningless. */
+	private boolean stopped;
+
+	/** Set from another thread to stop the search. */
+	volatile boolean stopRequested;
+
+	/** Best move and score of the last completed iteration. */
+	private int bestMove;
+	private int bestScore;
+
+	/** Depth of the last completed iteration. */
+	private int completedDepth;
+
+	/** Best move and score of the iteration in progress. */
+	private int rootMove;
+	private int rootScore;
+
+	/**
+	 * Creates an engine.
+	 *
+	 * @param tt table to keep results in
+	 */
+	public Search(TranspositionTable tt) {
+		this(tt, 0);
+	}
+
+	/**
+	 * Creates one thread's engine of a ParallelSearch. Odd numbered threads start one ply deeper than
+	 * the main thread, so the threads work on different depths and fill the table with different parts of
+	 * the tree.
+	 *
+	 * @param tt table shared by the threads
+	 * @param id thread number, 0 for the main thread
+	 */
+	Search(TranspositionTable tt, int id) {
+		this.tt = tt;
+		this.id = id;
+		for (int i = 0; i < MAX_PLY; i++) {
+			this.pickers[i] = new MovePicker();
+			this.undos[i] = new Board.UndoInfo();
+		}
+	}
+
+	/**
+	 * Searches a position up to a depth or until the node budget runs out.
+	 *
+	 * @param board position to search (left unchanged)
+	 * @param depth maximum depth in plies
+	 * @param nodeLimit nodes the search may visit
+	 * @return best move found, Move.NONE if the side to move has no legal move
+	 */
+	public int search(Board board, int depth, long nodeLimit) {
+		return this.search(board, depth, nodeLimit, null);
+	}
+
+	/**
+	 * Searches a position for as long as the time manager allows.
+	 *
+	 * @param board position to search (left unchanged)
+	 * @param time time limits of the search
+	 * @return best move found, Move.NONE if the side to move has no legal move
+	 */
+	public int search(Board board, TimeManager time) {
+		return this.search(board, MAX_PLY - 1, Long.MAX_VALUE, time);
+	}
+
+	/**
+	 * Searches a position with iterative deepening: depth 1, then 2 and so on, until the maximum depth
+	 * is done, the node budget or time runs out, or the next iteration is not expected to finish in time.
+	 * The first iteration always completes, so a legal move is returned whenever there is one.
+	 * If the position is in the opening book or the tablebases the move is taken from there without
+	 * searching.
+	 *
+	 * @param board position to search (left unchanged)
+	 * @param maxDepth maximum depth in plies, at most MAX_PLY - 1
+	 * @param nodeLimit nodes the search may visit
+	 * @param time time limits of the search, null for none
+	 * @return best move of the last completed iteration, Move.NONE if the side to move has no legal move
+	 */
+	public int search(Board board, int maxDepth, long nodeLimit, TimeManager time) {
+		int bookMove = this.book == null ? Move.NONE : this.book.probe(board);
+		if (bookMove != Move.NONE) return this.useMove(bookMove, 0);
+		int tablebaseMove = this.probeRoot(board);
+		if (tablebaseMove != Move.NONE) return tablebaseMove;
+		this.stopRequested = false;
+		this.tt.newSearch();
+		return this.run(board, maxDepth, nodeLimit, time);
+	}
+
+	/**
+	 * Sets the opening book to play from before searching.
+	 *
+	 * @param book opening book, null to always search
+	 */
+	public void setOpeningBook(OpeningBook book) {
+		this.book = book;
+	}
+
+	/**
+	 * Sets the endgame tables to score positions from.
+	 *
+	 * @param tablebase tablebases, null to always search
+	 */
+	public void setTablebase(Tablebase tablebase) {
+		this.tablebase = tablebase;
+	}
+
+	/**
+	 * Takes a move found without searching as the result of a search, which then visited no nodes and
+	 * reached depth 0.
+	 *
+	 * @param move packed legal move
+	 * @param score score of the move
+	 * @return the move
+	 */
+	int useMove(int move, int score) {
+		this.nodes = 0;
+		this.tablebaseHits = 0;
+		this.bestMove = move;
+		this.bestScore = score;
+		this.completedDepth = 0;
+		return move;
+	}
+
+	/**
+	 * Picks the move of a position in the tablebases which mates fastest, or failing that draws or is
+	 * mated slowest, by looking up the position after each legal move.
+	 *
+	 * @param board position to look up (left unchanged)
+	 * @return the move, Move.NONE if the position or one of the positions after it is not in the tables
+	 */
+	int probeRoot(Board board) {
+		if (this.tablebase == null
+				|| this.tablebase.probe(board, this.tablebasePieces, this.tablebaseSquares) == Tablebase.NOT_FOUND) {
+			return Move.NONE;
+		}
+		MoveList moves = new MoveList();
+		board.generateLegalMoves(moves);
+		Board.UndoInfo undo = new Board.UndoInfo();
+		int best = Move.NONE;
+		int bestScore = -INFINITY;
+		for (int i = 0; i < moves.size(); i++) {
+			int move = moves.get(i);
+			board.makeMove(move, undo);
+			int score = this.tablebase.probe(board, this.tablebasePieces, this.tablebaseSquares);
+			board.unmakeMove(move, undo);
+			if (score == Tablebase.NOT_FOUND) return Move.NONE;
+			score = -score;
+			if (score > 0) score--;
+			else if (score < 0) score++;
+			if (score > bestScore) {
+				bestScore = score;
+				best = move;
+			}
+		}
+		return best == Move.NONE ? Move.NONE : this.useMove(best, bestScore);
+	}
+
+	/**
+	 * Asks a running search to stop, it returns the move of its last completed iteration soon after.
+	 * Safe to call from any thread.
+	 */
+	public void stop() {
+		this.stopRequested = true;
+	}
+
+	/**
+	 * The iterative deepening loop of search. Unlike search it neither clears a stop request made before
+	 * it started nor ages the table, a ParallelSearch does both once for all of its threads.
+	 *
+	 * @param board position to search (left unchanged)
+	 * @param maxDepth maximum depth in plies, at most MAX_PLY - 1
+	 * @param nodeLimit nodes the search may visit
+	 * @param time time limits of the search, null for none
+	 * @return best move of the last completed iteration, Move.NONE if the side to move has no legal move
+	 */
+	int run(Board board, int maxDepth, long nodeLimit, TimeManager time) {
+		this.board = board.copy();
+		this.nodes = 0;
+		this.nodeLimit = nodeLimit;
+		this.timeCheckCountdown = TIME_CHECK_NODES;
+		this.time = time;
+		this.stopped = false;
+		this.bestMove = Move.NONE;
+		this.bestScore = 0;
+		this.completedDepth = 0;
+		this.cutoffs = 0;
+		this.firstMoveCutoffs = 0;
+		this.tablebaseHits = 0;
+		this.pawns.resetStatistics();
+		for (int[] k : this.killers) k[0] = k[1] = Move.NONE;
+		for (int i = 0; i < this.history.length; i++) this.history[i] >>= 2;
+		if (time != null) time.start();
+
+		long lastNodes = 0;
+		int ahead = this.id & 1;
+		for (int depth = 1 + ahead; depth <= Math.min(maxDepth + ahead, MAX_PLY - 1); depth++) {
+			long startNodes = this.nodes;
+			long startNanos = System.nanoTime();
+			int moves = this.searchRoot(depth);
+			if (this.stopped) break;
+			this.completedDepth = depth;
+			this.bestMove = this.rootMove;
+			this.bestScore = this.rootScore;
+			// nothing to choose between, or a mate was found and the next iteration can only find it again
+			if (moves <= 1 || Math.abs(this.bestScore) >= MATE_BOUND) break;
+
+			long iterationNodes = this.nodes - startNodes;
+			long iterationNanos = System.nanoTime() - startNanos;
+			double branchingFactor = lastNodes > 0 ? (double) iterationNodes / lastNodes : DEFAULT_BRANCHING_FACTOR;
+			lastNodes = iterationNodes;
+			if (time != null && !time.canStartIteration(iterationNanos, branchingFactor)) break;
+		}
+		return this.bestMove;
+	}
+
+	/**
+	 * Best move of the last search.
+	 *
+	 * @return best move of the last completed iteration, Move.NONE if none
+	 */
+	public int getBestMove() {
+		return this.bestMove;
+	}
+
+	/**
+	 * Score of the best move of the last search.
+	 *
+	 * @return centipawns from the side to move's point of view, or Board.MATE - n for mate in n plies
+	 */
+	public int getScore() {
+		return this.bestScore;
+	}
+
+	/**
+	 * Depth of the last completed iteration of the last search.
+	 *
+	 * @return depth in plies, 0 if the move came from the opening book or tablebases
+	 */
+	public int getDepth() {
+		return this.completedDepth;
+	}
+
+	/**
+	 * Nodes visited by the last search.
+	 *
+	 * @return number of positions visited
+	 */
+	public long getNodes() {
+		return this.nodes;
+	}
+
+	/**
+	 * Positions of the last search scored from the tablebases instead of searched.
+	 *
+	 * @return number of tablebase hits
+	 */
+	public long getTablebaseHits() {
+		return this.tablebaseHits;
+	}
+
+	/**
+	 * Pawn table of this engine, whose statistics cover the last search.
+	 *
+	 * @return the pawn table
+	 */
+	public PawnTable getPawnTable() {
+		return this.pawns;
+	}
+
+	/**
+	 * Share of the cutoffs in the last search caused by the first move searched, the closer to 1 the
+	 * better the move ordering.
+	 *
+	 * @return fraction of cutoffs on the first move, 0 if there were none
+	 */
+	public double getFirstMoveCutoffRate() {
+		return this.cutoffs == 0 ? 0 : (double) this.firstMoveCutoffs / this.cutoffs;
+	}
+
+	/**
+	 * Searches each root move with a full window, so the best move is known exactly. The result is left
+	 * in rootMove and rootScore.
+	 *
+	 * @param depth depth in plies
+	 * @return number of legal root moves
+	 */
+	private int searchRoot(int depth) {
+		Board b = this.board;
+		MovePicker picker = this.pickers[0];
+		picker.init(b, TranspositionTable.move(this.tt.probe(b.hash())), this.killers[0][0], this.killers[0][1], this.history);
+		this.rootMove = Move.NONE;
+
+		int alpha = -INFINITY;
+		int played = 0;
+		Board.UndoInfo undo = this.undos[0];
+		for (int move; (move = picker.next()) != Move.NONE; ) {
+			played++;
+			b.makeMove(move, undo);
+			int score = -this.negamax(depth - 1, -INFINITY, -alpha, 1);
+			b.unmakeMove(move, undo);
+			if (this.stopped) return played;
+			if (score > alpha) {
+				alpha = score;
+				this.rootMove = move;
+				this.rootScore = score;
+			}
+		}
+		if (played == 0) {
+			this.rootScore = b.isInCheck() ? -Board.MATE : 0;
+			return 0;
+		}
+		this.tt.store(b.hash(), this.rootMove, this.rootScore, depth, TranspositionTable.BOUND_EXACT);
+		return played;
+	}
+
+	/**
+	 * Checks the node budget and, every TIME_CHECK_NODES nodes, the clock and stop requests. None are
+	 * checked until the first iteration has completed, so there is always a move to return.
+	 *
+	 * @return true if the search has to stop
+	 */
+	private boolean checkStop() {
+		if (this.completedDepth == 0) return false;
+		if (this.nodes >= this.nodeLimit) {
+			this.stopped = true;
+		} else if (this.timeCheckCountdown <= 0) {
+			this.timeCheckCountdown = TIME_CHECK_NODES;
+			if (this.stopRequested || (this.time != null && this.time.isTimeUp())) this.stopped = true;
+		}
+		return this.stopped;
+	}
+
+	/**
+	 * Counts a visited node. Every node is counted here, so the clock is checked every TIME_CHECK_NODES
+	 * nodes however they are reached.
+	 */
+	private void countNode() {
+		this.nodes++;
+		this.timeCheckCountdown--;
+	}
+
+	/**
+	 * Negamax alpha-beta search.
+	 *
+	 * @param depth plies left
+	 * @param alpha score the side to move already has elsewhere
+	 * @param beta score the opponent already has elsewhere
+	 * @param ply plies from the root
+	 * @return score of the position, from the side to move's point of view
+	 */
+	private int negamax(int depth, int alpha, int beta, int ply) {
+		// a repetition can be repeated again, so it is as good as the threefold repetition draw
+		if (this.board.isRepetition(1) || this.board.getHalfmoveClock() >= 100) return 0;
+		if (this.tablebase != null && Long.bitCount(this.board.getOccupancy()) <= Tablebase.MAX_PIECES) {
+			int score = this.tablebase.probe(this.board, this.tablebasePieces, this.tablebaseSquares);
+			if (score != Tablebase.NOT_FOUND) {
+				this.countNode();
+				this.tablebaseHits++;
+				// the table counts the distance from here, the search from the root
+				return score > 0 ? score - ply : score < 0 ? score + ply : 0;
+			}
+		}
+		if (depth == 0) return this.quiescence(alpha, beta, ply);
+		this.countNode();
+		if (this.checkStop()) return 0;
+		Board b = this.board;
+
+		long key = b.hash();
+		long entry = this.tt.probe(key);
+		int hashMove = Move.NONE;
+		if (entry != 0) {
+			hashMove = TranspositionTable.move(entry);
+			if (TranspositionTable.depth(entry) >= depth) {
+				int score = fromTable(TranspositionTable.score(entry), ply);
+				int bound = TranspositionTable.bound(entry);
+				if (bound == TranspositionTable.BOUND_EXACT
+						|| (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+						|| (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+					return score;
+				}
+			}
+		}
+
+		MovePicker picker = this.pickers[ply];
+		picker.init(b, hashMove, this.killers[ply][0], this.killers[ply][1], this.history);
+
+		int originalAlpha = alpha;
+		int best = -INFINITY;
+		int bestMove = Move.NONE;
+		int played = 0;
+		Board.UndoInfo undo = this.undos[ply];
+		for (int move; (move = picker.next()) != Move.NONE; ) {
+			played++;
+			b.makeMove(move, undo);
+			int score = -this.negamax(depth - 1, -beta, -alpha, ply + 1);
+			b.unmakeMove(move, undo);
+			if (this.stopped) return 0;
+			if (score > best) {
+				best = score;
+				bestMove = move;
+				if (score > alpha) {
+					alpha = score;
+					if (alpha >= beta) {
+						this.cutoff(move, depth, ply, played);
+						break;
+					}
+				}
+			}
+		}
+		if (played == 0) return b.isInCheck() ? -Board.MATE + ply : 0;
+
+		int bound = best >= beta ? TranspositionTable.BOUND_LOWER
+				: best > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+		this.tt.store(key, bestMove, toTable(best, ply), depth, bound);
+		return best;
+	}
+
+	/**
+	 * Quiescence search: only captures and promotions are searched, so the score is not taken in the
+	 * middle of an exchange. The side to move may stand pat on the static evaluation instead of capturing.
+	 * Captures which lose material by static exchange evaluation are not searched, nor captures which
+	 * would not reach alpha even if the captured piece was won for free (delta pruning). In check every
+	 * move is searched, as standing pat would not be safe.
+	 *
+	 * @param alpha score the side to move already has elsewhere
+	 * @param beta score the opponent already has elsewhere
+	 * @param ply plies from the root
+	 * @return score of the position, from the side to move's point of view
+	 */
+	private int quiescence(int alpha, int beta, int ply) {
+		this.countNode();
+		if (this.checkStop()) return 0;
+		Board b = this.board;
+		if (ply >= MAX_PLY - 1) return Evaluation.evaluate(b, this.pawns);
+
+		boolean inCheck = b.isInCheck();
+		MovePicker picker = this.pickers[ply];
+		int best;
+		if (inCheck) {
+			best = -INFINITY;
+			picker.init(b, Move.NONE, Move.NONE, Move.NONE, this.history);
+		} else {
+			best = Evaluation.evaluate(b, this.pawns);
+			if (best >= beta) return best;
+			if (best > alpha) alpha = best;
+			picker.initQuiescence(b);
+		}
+
+		int standPat = best;
+		int played = 0;
+		Board.UndoInfo undo = this.undos[ply];
+		for (int move; (move = picker.next()) != Move.NONE; ) {
+			played++;
+			if (!inCheck) {
+				int gain = Move.isEnPassant(move) ? Evaluation.PIECE_VALUES[Board.PAWN]
+						: Move.isCapture(move) ? Evaluation.PIECE_VALUES[b.getPieceType(Move.getTo(move))] : 0;
+				if (Move.getPromotion(move) != 0) {
+					gain += Evaluation.PIECE_VALUES[Move.getPromotion(move)] - Evaluation.PIECE_VALUES[Board.PAWN];
+				}
+				if (standPat + gain + DELTA_MARGIN <= alpha) continue;
+			}
+			b.makeMove(move, undo);
+			int score = -this.quiescence(-beta, -alpha, ply + 1);
+			b.unmakeMove(move, undo);
+			if (this.stopped) return 0;
+			if (score > best) {
+				best = score;
+				if (score > alpha) {
+					alpha = score;
+					if (alpha >= beta) break;
+				}
+			}
+		}
+		if (inCheck && played == 0) return -Board.MATE + ply;
+		return best;
+	}
+
+	/**
+	 * Records a cutoff: a quiet move which caused it becomes a killer move of its ply and gains history.
+	 *
+	 * @param move the move which caused the cutoff
+	 * @param depth plies left at the node
+	 * @param ply plies from the root
+	 * @param played number of moves searched at the node, this one included
+	 */
+	private void cutoff(int move, int depth, int ply, int played) {
+		this.cutoffs++;
+		if (played == 1) this.firstMoveCutoffs++;
+		if (Move.isCapture(move) || Move.getPromotion(move) != 0) return;
+		int[] k = this.killers[ply];
+		if (k[0] != move) {
+			k[1] = k[0];
+			k[0] = move;
+		}
+		int index = (this.board.getSideToMove() << 12) | (move & 0xFFF);
+		if ((this.history[index] += depth * depth) > HISTORY_LIMIT) {
+			for (int i = 0; i < this.history.length; i++) this.history[i] >>= 1;
+		}
+	}
+
+	/**
+	 * Converts a score to store in the table, mate scores are stored relative to the position instead of
+	 * the root so they stay correct when the position is reached at a different ply.
+	 *
+	 * @param score score relative to the root
+	 * @param ply plies from the root
+	 * @return score to store
+	 */
+	private static int toTable(int score, int ply) {
+		if (score >= MATE_BOUND) return score + ply;
+		if (score <= -MATE_BOUND) return score - ply;
+		return score;
+	}
+
+	/**
+	 * Converts a score read from the table back to the root's point of view.
+	 *
+	 * @param score stored score
+	 * @param ply plies from the root
+	 * @return score relative to the root
+	 */
+	private static int fromTable(int score, int ply) {
+		if (score >= MATE_BOUND) return score - ply;
+		if (score <= -MATE_BOUND) return score + ply;
+		return score;
+	}
+}
@@ -0,0 +1,102 @@
+package chess.engine;
+
+/**
+ * TimeManager decides how long a search may run. It gives two limits: the optimum time, after which no
+ * new iteration of iterative deepening is started, and the maximum time, at which the running iteration
+ * is abandoned. A new iteration is only started if it is expected to finish within the optimum time,
+ * estimated from the time of the last iteration and the effective branching factor.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public final class TimeManager {
+	/** Time kept back to return the move and play it, in ms. */
+	private static final long OVERHEAD_MS = 10;
+
+	/** Number of moves the remaining clock is assumed to be shared between. */
+	private static final int MOVES_TO_GO = 30;
+
+	/** Time after which no new iteration is started, in ns. */
+	private final long optimum;
+
+	/** Time at which the search is stopped, in ns. */
+	private final long maximum;
+
+	/** System.nanoTime() when the search started. */
+	private long start;
+
+	/**
+	 * Creates a time manager with the given limits.
+	 *
+	 * @param optimumMillis time after which no new iteration is started
+	 * @param maximumMillis time at which the search is stopped
+	 */
+	private TimeManager(long optimumMillis, long maximumMillis) {
+		this.maximum = Math.max(1, maximumMillis) * 1000000L;
+		this.optimum = Math.min(Math.max(1, optimumMillis) * 1000000L, this.maximum);
+		this.start = System.nanoTime();
+	}
+
+	/**
+	 * A fixed time for each move, the reply comes within this time.
+	 *
+	 * @param millis time for the move in ms
+	 * @return the time manager
+	 */
+	public static TimeManager moveTime(long millis) {
+		long limit = Math.max(1, millis - OVERHEAD_MS);
+		return new TimeManager(limit, limit);
+	}
+
+	/**
+	 * A share of the remaining clock. The search may run over its share when an iteration needs it, but
+	 * never uses more than a quarter of the remaining time.
+	 *
+	 * @param remainingMillis time left on the clock in ms
+	 * @param incrementMillis time added to the clock after each move in ms
+	 * @return the time manager
+	 */
+	public static TimeManager clock(long remainingMillis, long incrementMillis) {
+		long available = Math.max(1, remainingMillis - OVERHEAD_MS);
+		long optimum = Math.min(available / MOVES_TO_GO + incrementMillis * 3 / 4, available);
+		long maximum = Math.min(optimum * 3, Math.max(available / 4, optimum));
+		return new TimeManager(optimum, maximum);
+	}
+
+	/**
+	 * Restarts the clock, called when the search starts.
+	 */
+	public void start() {
+		this.start = System.nanoTime();
+	}
+
+	/**
+	 * Time since the search started.
+	 *
+	 * @return elapsed time in ns
+	 */
+	public long elapsed() {
+		return System.nanoTime() - this.start;
+	}
+
+	/**
+	 * Whether the search has to stop now.
+	 *
+	 * @return true once the maximum time has passed
+	 */
+	public boolean isTimeUp() {
+		return this.elapsed() >= this.maximum;
+	}
+
+	/**
+	 * Whether the next iteration is expected to finish in time. It is expected to take the time of the
+	 * last iteration times the effective branching factor.
+	 *
+	 * @param lastIteration time the last iteration took in ns
+	 * @param branchingFactor nodes of the last iteration divided by nodes of the one before it
+	 * @return true if the next iteration should be started
+	 */
+	public boolean canStartIteration(long lastIteration, double branchingFactor) {
+		return this.elapsed() + (long) (lastIteration * branchingFactor) <= this.optimum;
+	}
+}
@@ -0,0 +1,201 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size hash table of search results keyed by Board.hash().
+ * Entries live in a single long[], two longs each: the key xor'd with the data, then the data. A reader
+ * only accepts an entry if xor'ing the two gives back its key, so a torn entry written by another thread
+ * reads as a miss and the table can be shared between search threads without locks.
+ * Entries are grouped in buckets of two; a new result replaces the entry for the same key, otherwise
+ * the entry from an older search or with the smallest depth.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public final class TranspositionTable {
+	/** The score is an upper bound (the search failed low). */
+	public static final int BOUND_UPPER = 1;
+
+	/** The score is a lower bound (the search failed high). */
+	public static final int BOUND_LOWER = 2;
+
+	/** The score is exact. */
+	public static final int BOUND_EXACT = 3;
+
+	/** Entries per bucket. */
+	private static final int BUCKET_SIZE = 2;
+
+	/*
+	 * Layout of the data word:
+	 * bits 0-19 move, 20-35 score (signed), 36-43 depth, 44-45 bound, 46-51 age.
+	 */
+	private static final int SCORE_SHIFT = 20;
+	private static final int DEPTH_SHIFT = 36;
+	private static final int BOUND_SHIFT = 44;
+	private static final int AGE_SHIFT = 46;
+
+	/** The entries, two longs each. */
+	private final long[] table;
+
+	/** Number of buckets minus one, used to index by the low bits of the key. */
+	private final int bucketMask;
+
+	/** Age of the current search, entries of older searches are replaced first. */
+	private int age;
+
+	/**
+	 * Creates a table using about the given amount of memory, rounded down to a power of two entries.
+	 *
+	 * @param megabytes size of the table in MB (at least 1)
+	 */
+	public TranspositionTable(int megabytes) {
+		if (megabytes < 1) throw new IllegalArgumentException("megabytes must be at least 1 but was: " + megabytes);
+		long buckets = Long.highestOneBit(((long) megabytes << 20) / (16 * BUCKET_SIZE));
+		buckets = Math.min(buckets, 1L << 26); // keep the long[] within the maximum array length
+		this.table = new long[(int) buckets * BUCKET_SIZE * 2];
+		this.bucketMask = (int) buckets - 1;
+	}
+
+	/**
+	 * Empties the table in place.
+	 */
+	public void clear() {
+		Arrays.fill(this.table, 0);
+		this.age = 0;
+	}
+
+	/**
+	 * Starts a new search, so that entries from previous searches are preferred for replacement.
+	 */
+	public void newSearch() {
+		this.age = (this.age + 1) & 63;
+	}
+
+	/**
+	 * Looks up a position.
+	 *
+	 * @param key hash of the position
+	 * @return the data word of the entry (read with move, score, depth and bound), or 0 if not found
+	 */
+	public long probe(long key) {
+		int index = this.bucketIndex(key);
+		for (int i = 0; i < BUCKET_SIZE; i++, index += 2) {
+			long data = this.table[index + 1];
+			if ((this.table[index] ^ data) == key && data != 0) return data;
+		}
+		return 0;
+	}
+
+	/**
+	 * Stores the result of a search.
+	 *
+	 * @param key hash of the position
+	 * @param move best move found, Move.NONE if none
+	 * @param score score of the position (mate scores should be relative to this position)
+	 * @param depth depth searched, 0 to 255
+	 * @param bound BOUND_UPPER, BOUND_LOWER or BOUND_EXACT
+	 */
+	public void store(long key, int move, int score, int depth, int bound) {
+		int bucket = this.bucketIndex(key);
+		int replace = bucket;
+		int worst = Integer.MAX_VALUE;
+		for (int i = 0, index = bucket; i < BUCKET_SIZE; i++, index += 2) {
+			long data = this.table[index + 1];
+			if ((this.table[index] ^ data) == key || data == 0) {
+				// keep the old move if this search found none
+				if (move == 0 && data != 0) move = move(data);
+				replace = index;
+				break;
+			}
+			// older searches count as shallower
+			int value = depth(data) - 8 * ((this.age - age(data)) & 63);
+			if (value < worst) {
+				worst = value;
+				replace = index;
+			}
+		}
+		long data = (move & 0xFFFFFL)
+				| ((score & 0xFFFFL) << SCORE_SHIFT)
+				| ((long) Math.min(Math.max(depth, 0), 255) << DEPTH_SHIFT)
+				| ((long) bound << BOUND_SHIFT)
+				| ((long) this.age << AGE_SHIFT);
+		this.table[replace] = key ^ data;
+		this.table[replace + 1] = data;
+	}
+
+	/**
+	 * Estimates how full the table is from the first thousand entries.
+	 *
+	 * @return permille of entries used by the current search
+	 */
+	public int hashfull() {
+		int used = 0;
+		int count = Math.min(1000, this.table.length / 2);
+		for (int i = 0; i < count; i++) {
+			long data = this.table[2 * i + 1];
+			if (data != 0 && age(data) == this.age) used++;
+		}
+		return used * 1000 / count;
+	}
+
+	/**
+	 * Index of the first long of the bucket for a key.
+	 *
+	 * @param key hash of the position
+	 * @return index into the table
+	 */
+	private int bucketIndex(long key) {
+		return ((int) key & this.bucketMask) * BUCKET_SIZE * 2;
+	}
+
+	/**
+	 * Best move of an entry.
+	 *
+	 * @param data data word returned by probe
+	 * @return packed move, Move.NONE if none
+	 */
+	public static int move(long data) {
+		return (int) (data & 0xFFFFF);
+	}
+
+	/**
+	 * Score of an entry.
+	 *
+	 * @param data data word returned by probe
+	 * @return the score
+	 */
+	public static int score(long data) {
+		return (short) (data >>> SCORE_SHIFT);
+	}
+
+	/**
+	 * Depth of an entry.
+	 *
+	 * @param data data word returned by probe
+	 * @return depth searched
+	 */
+	public static int depth(long data) {
+		return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+	}
+
+	/**
+	 * Bound of an entry.
+	 *
+	 * @param data data word returned by probe
+	 * @return BOUND_UPPER, BOUND_LOWER or BOUND_EXACT
+	 */
+	public static int bound(long data) {
+		return (int) (data >>> BOUND_SHIFT) & 3;
+	}
+
+	/**
+	 * Age of an entry.
+	 *
+	 * @param data data word
+	 * @return age of the search that stored it
+	 */
+	private static int age(long data) {
+		return (int) (data >>> AGE_SHIFT) & 63;
+	}
+}
@@ -0,0 +1,329 @@
+package chess.perft;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import chess.Board;
+import chess.Move;
+import chess.MoveList;
+
+/**
+ * Perft counts the leaf nodes of the legal move tree to a fixed depth. The counts of well known positions
+ * are published, so it checks move generation and measures its speed in one run.
+ * Root moves are split across a ForkJoinPool and subtree counts can be cached by position hash.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public class Perft {
+	/**
+	 * Reference positions and their node counts (index 0 is depth 1).
+	 */
+	public static final Position[] REFERENCE_POSITIONS = {
+		new Position("Start position", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+				20L, 400L, 8902L, 197281L, 4865609L, 119060324L),
+		new Position("Kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+				48L, 2039L, 97862L, 4085603L, 193690690L),
+		new Position("Position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+				14L, 191L, 2812L, 43238L, 674624L, 11030083L),
+		new Position("Position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+				6L, 264L, 9467L, 422333L, 15833292L),
+		new Position("Position 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+				44L, 1486L, 62379L, 2103487L, 89941194L),
+		new Position("Position 6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+				46L, 2079L, 89890L, 3894594L, 164075551L),
+	};
+
+	/** Deepest tree that can be counted. */
+	private static final int MAX_DEPTH = 64;
+
+	/**
+	 * Cached subtree counts, two longs per entry: the key xor'd with the count, then the count. Threads
+	 * share it without locks, a torn entry fails the key check and reads as a miss. Null if disabled.
+	 */
+	private final long[] cache;
+
+	/** Number of cache entries minus one. */
+	private final int cacheMask;
+
+	/** Pool the root moves are split across. */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates a perft counter.
+	 *
+	 * @param hashMegabytes size of the subtree cache in MB, 0 to disable it
+	 * @param threads number of threads to split the root moves across
+	 */
+	public Perft(int hashMegabytes, int threads) {
+		if (hashMegabytes > 0) {
+			long entries = Math.min(Long.highestOneBit(((long) hashMegabytes << 20) / 16), 1L << 27);
+			this.cache = new long[(int) entries * 2];
+			this.cacheMask = (int) entries - 1;
+		} else {
+			this.cache = null;
+			this.cacheMask = 0;
+		}
+		this.pool = new ForkJoinPool(Math.max(1, threads));
+	}
+
+	/**
+	 * Counts the leaf nodes to the given depth.
+	 *
+	 * @param board position to count from (left unchanged)
+	 * @param depth number of plies
+	 * @return number of leaf nodes
+	 */
+	public long perft(Board board, int depth) {
+		long total = 0;
+		for (long count : this.divide(board, depth, new MoveList())) total += count;
+		return total;
+	}
+
+	/**
+	 * Counts the leaf nodes below each legal root move, each root move counted on its own copy of the board
+	 * in the pool.
+	 *
+	 * @param board position to count from (left unchanged)
+	 * @param depth number of plies, at least 1
+	 * @param roots filled with the legal root moves, in the same order as the counts
+	 * @return leaf nodes below each root move
+	 */
+	public long[] divide(Board board, int depth, MoveList roots) {
+		if (depth < 1 || depth > MAX_DEPTH) throw new IllegalArgumentException("depth must be between 1 and " + MAX_DEPTH);
+		roots.clear();
+		board.generateLegalMoves(roots);
+		List<RecursiveTask<Long>> tasks = new ArrayList<>();
+		for (int i = 0; i < roots.size(); i++) {
+			final int move = roots.get(i);
+			final Board copy = board.copy();
+			tasks.add(new RecursiveTask<Long>() {
+				@Override
+				protected Long compute() {
+					copy.makeMove(move);
+					return new Walker().count(copy, depth - 1, 0);
+				}
+			});
+		}
+		long[] counts = new long[tasks.size()];
+		for (RecursiveTask<Long> task : tasks) this.pool.execute(task);
+		for (int i = 0; i < counts.length; i++) counts[i] = tasks.get(i).join();
+		return counts;
+	}
+
+	/**
+	 * Stops the threads of the pool.
+	 */
+	public void shutdown() {
+		this.pool.shutdown();
+	}
+
+	/**
+	 * The cache key of a position counted to a depth.
+	 *
+	 * @param hash hash of the position
+	 * @param depth depth counted
+	 * @return key which differs for each depth
+	 */
+	private static long cacheKey(long hash, int depth) {
+		return hash ^ (depth * 0x9E3779B97F4A7C15L);
+	}
+
+	/**
+	 * Counts subtrees of one board with its own move lists and undo records.
+	 *
+	 * @author James Beetham
+	 * @author Samuel Jefferson
+	 */
+	private class Walker {
+		private final MoveList[] lists = new MoveList[MAX_DEPTH];
+		private final Board.UndoInfo[] undos = new Board.UndoInfo[MAX_DEPTH];
+
+		Walker() {
+			for (int i = 0; i < MAX_DEPTH; i++) {
+				this.lists[i] = new MoveList();
+				this.undos[i] = new Board.UndoInfo();
+			}
+		}
+
+		/**
+		 * Counts the leaf nodes below a position. The last ply is counted without making the moves.
+		 *
+		 * @param b board, left unchanged
+		 * @param depth plies left
+		 * @param ply plies from the root move, indexes the move lists
+		 * @return number of leaf nodes
+		 */
+		long count(Board b, int depth, int ply) {
+			if (depth == 0) return 1;
+			MoveList list = this.lists[ply];
+			list.clear();
+			b.generateLegalMoves(list);
+			if (depth == 1) return list.size();
+
+			long key = cacheKey(b.hash(), depth);
+			int index = ((int) key & cacheMask) * 2;
+			if (cache != null) {
+				long count = cache[index + 1];
+				if ((cache[index] ^ count) == key) return count;
+			}
+
+			long nodes = 0;
+			Board.UndoInfo undo = this.undos[ply];
+			for (int i = 0; i < list.size(); i++) {
+				int move = list.get(i);
+				b.makeMove(move, undo);
+				nodes += this.count(b, depth - 1, ply + 1);
+				b.unmakeMove(move, undo);
+			}
+
+			if (cache != null) {
+				cache[index] = key ^ nodes;
+				cache[index + 1] = nodes;
+			}
+			return nodes;
+		}
+	}
+
+	/**
+	 * A named position with its known perft counts.
+	 *
+	 * @author James Beetham
+	 * @author Samuel Jefferson
+	 */
+	public static class Position {
+		private final String name;
+		private final String fen;
+		private final long[] counts;
+
+		/**
+		 * Constructs a reference position.
+		 *
+		 * @param name name of the position
+		 * @param fen the position in Forsyth-Edwards Notation
+		 * @param counts leaf nodes at depth 1, 2, ...
+		 */
+		public Position(String name, String fen, long... counts) {
+			this.name = name;
+			this.fen = fen;
+			this.counts = counts;
+		}
+
+		/**
+		 * Get the name.
+		 *
+		 * @return name of the position
+		 */
+		public String getName() {
+			return this.name;
+		}
+
+		/**
+		 * Get the position.
+		 *
+		 * @return the position in Forsyth-Edwards Notation
+		 */
+		public String getFen() {
+			return this.fen;
+		}
+
+		/**
+		 * Get the known count at a depth.
+		 *
+		 * @param depth depth from 1 to getMaxDepth()
+		 * @return number of leaf nodes
+		 */
+		public long getCount(int depth) {
+			return this.counts[depth - 1];
+		}
+
+		/**
+		 * Deepest depth with a known count.
+		 *
+		 * @return maximum depth
+		 */
+		public int getMaxDepth() {
+			return this.counts.length;
+		}
+	}
+
+	/**
+	 * Runs perft from the command line.
+	 * Usage: Perft [depth] [fen] [-divide] [-suite] [-hash MB] [-threads N]
+	 * With -suite every reference position is counted up to depth (default 4) and checked against its
+	 * known counts, otherwise the fen (default the start position) is counted to depth (default 5).
+	 *
+	 * @param args see usage
+	 */
+	public static void main(String[] args) {
+		int depth = -1;
+		String fen = null;
+		boolean divide = false;
+		boolean suite = false;
+		int hash = 0;
+		int threads = Runtime.getRuntime().availableProcessors();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-divide")) {
+				divide = true;
+			} else if (args[i].equals("-suite")) {
+				suite = true;
+			} else if (args[i].equals("-hash") && i + 1 < args.length) {
+				hash = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-threads") && i + 1 < args.length) {
+				threads = Integer.parseInt(args[++i]);
+			} else if (args[i].matches("\\d+")) {
+				depth = Integer.parseInt(args[i]);
+			} else {
+				fen = args[i];
+			}
+		}
+
+		Perft perft = new Perft(hash, threads);
+		boolean passed = true;
+		if (suite) {
+			int maxDepth = depth == -1 ? 4 : depth;
+			for (Position position : REFERENCE_POSITIONS) {
+				for (int d = 1; d <= Math.min(maxDepth, position.getMaxDepth()); d++) {
+					long start = System.nanoTime();
+					long nodes = perft.perft(Board.fromFen(position.getFen()), d);
+					long nanos = System.nanoTime() - start;
+					boolean ok = nodes == position.getCount(d);
+					passed &= ok;
+					System.out.println(String.format("%-15s depth %d: %12d %s %8d ms %12d nps", position.getName(), d,
+							nodes, ok ? "ok  " : "FAIL (expected " + position.getCount(d) + ")", nanos / 1000000,
+							nodesPerSecond(nodes, nanos)));
+				}
+			}
+		} else {
+			Board board = fen == null ? new Board() : Board.fromFen(fen);
+			depth = depth == -1 ? 5 : depth;
+			MoveList roots = new MoveList();
+			long start = System.nanoTime();
+			long[] counts = perft.divide(board, depth, roots);
+			long nanos = System.nanoTime() - start;
+			long nodes = 0;
+			for (int i = 0; i < counts.length; i++) {
+				if (divide) System.out.println(Move.toString(roots.get(i)) + ": " + counts[i]);
+				nodes += counts[i];
+			}
+			System.out.println("Nodes: " + nodes);
+			System.out.println("Time: " + nanos / 1000000 + " ms");
+			System.out.println("Nodes/sec: " + nodesPerSecond(nodes, nanos));
+		}
+		perft.shutdown();
+		if (!passed) System.exit(1);
+	}
+
+	/**
+	 * Speed of a count.
+	 *
+	 * @param nodes leaf nodes counted
+	 * @param nanos time taken
+	 * @return nodes per second
+	 */
+	private static long nodesPerSecond(long nodes, long nanos) {
+		return nanos == 0 ? 0 : nodes * 1000000000L / nanos;
+	}
+}
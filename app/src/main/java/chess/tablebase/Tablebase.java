@@ -0,0 +1,325 @@
+package chess.tablebase;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import chess.Attacks;
+import chess.Board;
+
+/**
+ * Tablebase looks up endgames of up to MAX_PIECES pieces, kings included, in the distance to mate files
+ * written by TablebaseGenerator. There is one file per material signature, eg. "KRK.dtm" or "KQKR.dtm",
+ * holding one byte per position (see the value constants). Files are memory mapped the first time a
+ * position of their signature is probed, so they cost no heap and are shared by every search thread.
+ * <p>
+ * A signature lists white's pieces then black's, strongest first, with the stronger side as white;
+ * positions with the colors the other way round are looked up with the board flipped. Tables are indexed
+ * by side to move, the white king's square (folded onto files a-d, and for tables without pawns onto
+ * ranks 1-4, by mirroring the board) and the squares of the other pieces in signature order. Squares are
+ * numbered as in Board, a8 is 0 and h1 is 63, so ranks 1-4 are squares 32-63.
+ * Positions with castling rights or a possible en passant capture are not in the tables.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public final class Tablebase {
+	/** Most pieces, kings included, of a position in the tables. */
+	public static final int MAX_PIECES = 4;
+
+	/** Returned by probe for positions no table holds. */
+	public static final int NOT_FOUND = Integer.MIN_VALUE;
+
+	/*
+	 * Values of the table entries: 0 is a draw, 1 to 253 is the distance to mate in plies plus one (odd
+	 * for the side to move being mated, even for it mating), STALEMATE and INVALID as below.
+	 */
+	static final int DRAW = 0;
+	static final int STALEMATE = 254;
+	static final int INVALID = 255;
+
+	/** Longest distance to mate in plies a table can hold. */
+	static final int MAX_DISTANCE = 252;
+
+	/** Letter of each piece type, indexed by Board.PAWN to Board.KING. */
+	private static final String TYPE_LETTERS = "PNBRQK";
+
+	/** Directory holding the table files. */
+	private final File directory;
+
+	/** Marks a signature without a file in the tables array. */
+	private static final Object MISSING = new Object();
+
+	/**
+	 * Mapped table of each signature, or MISSING, filled in as they are first used. Indexed by
+	 * materialKey.
+	 */
+	private final AtomicReferenceArray<Object> tables = new AtomicReferenceArray<>(12 + 12 * 12);
+
+	/**
+	 * Opens the tables in a directory. Files are only mapped when first needed.
+	 *
+	 * @param directory directory of .dtm files
+	 */
+	public Tablebase(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Looks up a position.
+	 *
+	 * @param b position to look up
+	 * @return Board.MATE - n if the side to move mates in n plies, n - Board.MATE
+	 * if it is mated in n plies, 0 for a draw, or NOT_FOUND if no table holds the position
+	 */
+	public int probe(Board b) {
+		return this.probe(b, new int[MAX_PIECES], new int[MAX_PIECES]);
+	}
+
+	/**
+	 * Looks up a position without allocating, for callers which probe often (eg. the search).
+	 *
+	 * @param b position to look up
+	 * @param pieces scratch array of at least MAX_PIECES entries
+	 * @param squares scratch array of at least MAX_PIECES entries
+	 * @return score as returned by probe(Board)
+	 */
+	public int probe(Board b, int[] pieces, int[] squares) {
+		int count = Long.bitCount(b.getOccupancy());
+		if (count > MAX_PIECES || b.getCastlingRights() != 0) return NOT_FOUND;
+		int stm = b.getSideToMove();
+		int ep = b.getEnPassantSquare();
+		if (ep != -1 && (Attacks.pawn(stm ^ 1, ep) & b.getPieceBitboard(stm, Board.PAWN)) != 0) return NOT_FOUND;
+
+		int n = 0;
+		for (int piece = 0; piece < 12; piece++) {
+			for (long bb = b.getPieceBitboard(piece / 6, piece % 6); bb != 0; bb &= bb - 1) {
+				pieces[n] = piece;
+				squares[n++] = Long.numberOfTrailingZeros(bb);
+			}
+		}
+		return toScore(this.lookup(stm, pieces, squares, count));
+	}
+
+	/**
+	 * Converts a table value into a score.
+	 *
+	 * @param value table value, or NOT_FOUND
+	 * @return score as returned by probe
+	 */
+	static int toScore(int value) {
+		if (value == NOT_FOUND || value == INVALID) return NOT_FOUND;
+		if (value == DRAW || value == STALEMATE) return 0;
+		int distance = value - 1;
+		return (distance & 1) == 0 ? distance - Board.MATE : Board.MATE - distance;
+	}
+
+	/**
+	 * Looks up the table value of a position given as a list of pieces.
+	 *
+	 * @param stm side to move
+	 * @param pieces color * 6 + type of each piece, in any order (reordered)
+	 * @param squares square of each piece (reordered)
+	 * @param count number of pieces
+	 * @return table value, DRAW for two kings, NOT_FOUND if there is no table for the material
+	 */
+	int lookup(int stm, int[] pieces, int[] squares, int count) {
+		if (count == 2) return DRAW;
+		sort(pieces, squares, count);
+		if (!isCanonical(pieces, count)) {
+			for (int i = 0; i < count; i++) {
+				pieces[i] = (pieces[i] + 6) % 12;
+				squares[i] ^= 56;
+			}
+			stm ^= 1;
+			sort(pieces, squares, count);
+		}
+		MappedByteBuffer table = this.table(pieces, count);
+		if (table == null) return NOT_FOUND;
+		return table.get((int) index(stm, squares, count, hasPawns(pieces, count))) & 0xFF;
+	}
+
+	/**
+	 * Maps the table of a material signature, if its file exists. Whether it exists is only checked the
+	 * first time.
+	 *
+	 * @param pieces color * 6 + type of each piece, sorted and canonical
+	 * @param count number of pieces
+	 * @return the table, null if there is no file for it
+	 */
+	private MappedByteBuffer table(int[] pieces, int count) {
+		int key = materialKey(pieces, count);
+		Object table = this.tables.get(key);
+		if (table == null) {
+			File file = this.file(signature(pieces, count));
+			if (file.isFile()) {
+				try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+					table = in.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, in.length());
+				} catch (IOException e) {
+					throw new IllegalStateException("Cannot read tablebase " + file, e);
+				}
+			} else {
+				table = MISSING;
+			}
+			this.tables.compareAndSet(key, null, table);
+			table = this.tables.get(key);
+		}
+		return table == MISSING ? null : (MappedByteBuffer) table;
+	}
+
+	/**
+	 * Small number standing for a material signature, the pieces other than the kings.
+	 *
+	 * @param pieces color * 6 + type of each piece, sorted
+	 * @param count number of pieces, 3 or 4
+	 * @return index into tables
+	 */
+	private static int materialKey(int[] pieces, int count) {
+		return count == 3 ? pieces[2] : 12 + pieces[2] * 12 + pieces[3];
+	}
+
+	/**
+	 * The file of a signature in this tablebase's directory.
+	 *
+	 * @param signature material signature, eg. "KRK"
+	 * @return the file, which need not exist
+	 */
+	File file(String signature) {
+		return new File(this.directory, signature + ".dtm");
+	}
+
+	/**
+	 * Orders pieces as the index expects: the white king, the black king, then white's and black's other
+	 * pieces strongest first.
+	 *
+	 * @param pieces color * 6 + type of each piece
+	 * @param squares square of each piece, moved with its piece
+	 * @param count number of pieces
+	 */
+	static void sort(int[] pieces, int[] squares, int count) {
+		for (int i = 1; i < count; i++) {
+			for (int j = i; j > 0 && order(pieces[j]) < order(pieces[j - 1]); j--) {
+				int p = pieces[j];
+				pieces[j] = pieces[j - 1];
+				pieces[j - 1] = p;
+				int s = squares[j];
+				squares[j] = squares[j - 1];
+				squares[j - 1] = s;
+			}
+		}
+	}
+
+	/**
+	 * Sort key of a piece, see sort.
+	 *
+	 * @param piece color * 6 + type
+	 * @return smaller first
+	 */
+	private static int order(int piece) {
+		int color = piece / 6;
+		int type = piece % 6;
+		if (type == Board.KING) return color;
+		return 2 + color * 6 + (Board.QUEEN - type);
+	}
+
+	/**
+	 * Signature of sorted pieces, eg. "KQKR".
+	 *
+	 * @param pieces color * 6 + type of each piece, sorted
+	 * @param count number of pieces
+	 * @return the signature
+	 */
+	static String signature(int[] pieces, int count) {
+		StringBuilder white = new StringBuilder("K");
+		StringBuilder black = new StringBuilder("K");
+		for (int i = 2; i < count; i++) {
+			(pieces[i] / 6 == Board.WHITE ? white : black).append(TYPE_LETTERS.charAt(pieces[i] % 6));
+		}
+		return white.append(black).toString();
+	}
+
+	/**
+	 * Whether sorted pieces have white as the stronger side, so they are looked up without flipping.
+	 * A side is stronger if its strongest piece that differs is stronger, or if it has more pieces.
+	 *
+	 * @param pieces color * 6 + type of each piece, sorted
+	 * @param count number of pieces
+	 * @return true if the signature is as stored
+	 */
+	static boolean isCanonical(int[] pieces, int count) {
+		int split = 2;
+		while (split < count && pieces[split] / 6 == Board.WHITE) split++;
+		for (int w = 2, b = split; w < split && b < count; w++, b++) {
+			if (pieces[w] != pieces[b] - 6) return pieces[w] > pieces[b] - 6;
+		}
+		return split - 2 >= count - split;
+	}
+
+	/**
+	 * Whether any of the pieces is a pawn, which decides how the board is folded.
+	 *
+	 * @param pieces color * 6 + type of each piece
+	 * @param count number of pieces
+	 * @return true if there is a pawn
+	 */
+	static boolean hasPawns(int[] pieces, int count) {
+		for (int i = 0; i < count; i++) {
+			if (pieces[i] % 6 == Board.PAWN) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Number of entries of a table.
+	 *
+	 * @param count number of pieces
+	 * @param pawns whether there are pawns
+	 * @return entries
+	 */
+	static long size(int count, boolean pawns) {
+		return 2L * (pawns ? 32 : 16) << (6 * (count - 1));
+	}
+
+	/**
+	 * Index of a position in its table. The board is mirrored so the white king is on files a-d, and
+	 * without pawns also on ranks 1-4 (squares 32 and up, as square 0 is a8).
+	 *
+	 * @param stm side to move
+	 * @param squares square of each piece, in sort order
+	 * @param count number of pieces
+	 * @param pawns whether there are pawns
+	 * @return index into the table
+	 */
+	static long index(int stm, int[] squares, int count, boolean pawns) {
+		int flip = (squares[0] & 7) > 3 ? 7 : 0;
+		if (!pawns && (squares[0] ^ flip) < 32) flip ^= 56;
+		int king = squares[0] ^ flip;
+		long index = stm * (pawns ? 32 : 16) + (pawns ? (king >>> 3) * 4 : ((king >>> 3) - 4) * 4) + (king & 3);
+		for (int i = 1; i < count; i++) index = (index << 6) | (squares[i] ^ flip);
+		return index;
+	}
+
+	/**
+	 * Decodes an index back into a position, the white king always ends up on files a-d, and without pawns
+	 * also on ranks 1-4.
+	 *
+	 * @param index index into the table
+	 * @param squares filled with the square of each piece, in sort order
+	 * @param count number of pieces
+	 * @param pawns whether there are pawns
+	 * @return side to move
+	 */
+	static int decode(long index, int[] squares, int count, boolean pawns) {
+		for (int i = count - 1; i > 0; i--) {
+			squares[i] = (int) (index & 63);
+			index >>>= 6;
+		}
+		int slots = pawns ? 32 : 16;
+		int king = (int) (index % slots);
+		squares[0] = ((king >>> 2) + (pawns ? 0 : 4)) * 8 + (king & 3);
+		return (int) (index / slots);
+	}
+}
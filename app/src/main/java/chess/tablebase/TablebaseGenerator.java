@@ -0,0 +1,518 @@
+package chess.tablebase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import chess.Attacks;
+import chess.Board;
+
+/**
+ * TablebaseGenerator writes the distance to mate files read by Tablebase, by retrograde analysis: first
+ * the checkmates are found, then the positions which mate in 1 ply, then those which cannot avoid being
+ * mated in 2 plies, and so on until no more positions are resolved. Whatever is left is a draw.
+ * <p>
+ * Each ply is a pass over the whole table: every unresolved position generates its moves and looks up
+ * the positions they lead to, which are in this table or, after a capture or promotion, in a smaller one
+ * generated before. Positions only ever change from unresolved to resolved within a pass, so the passes
+ * are split over a ForkJoinPool without locks. En passant captures are not considered.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public final class TablebaseGenerator {
+	/** Positions per fork-join task. */
+	private static final int TASK_SIZE = 1 << 15;
+
+	/** Piece letters of the signatures, in Board type order. */
+	private static final String TYPE_LETTERS = "PNBRQK";
+
+	/** Types a pawn can promote to. */
+	private static final int[] PROMOTIONS = {Board.QUEEN, Board.ROOK, Board.BISHOP, Board.KNIGHT};
+
+	/** Directory the tables are written to, and read from as smaller tables. */
+	private final File directory;
+
+	/** Tables generated so far, for the positions after captures and promotions. */
+	private final Tablebase tablebase;
+
+	private final ForkJoinPool pool;
+
+	/** Whether a line is printed for each table generated, only set by main. */
+	private boolean verbose;
+
+	/**
+	 * Creates a generator.
+	 *
+	 * @param directory directory to write the tables to
+	 * @param threads number of threads to generate with
+	 */
+	public TablebaseGenerator(File directory, int threads) {
+		if (threads < 1) throw new IllegalArgumentException("threads must be at least 1 but was: " + threads);
+		this.directory = directory;
+		this.tablebase = new Tablebase(directory);
+		this.pool = new ForkJoinPool(threads);
+	}
+
+	/**
+	 * Generates the table of a signature, and first the tables it converts into by captures and
+	 * promotions. Tables whose file already exists are not generated again.
+	 *
+	 * @param signature material signature, eg. "KRK" or "KQKR"
+	 * @throws IOException if a table cannot be written
+	 * @throws IllegalArgumentException if the signature is not of 3 or 4 pieces with the stronger side first
+	 */
+	public void generate(String signature) throws IOException {
+		int[] pieces = parse(signature);
+		if (this.tablebase.file(signature).isFile()) return;
+		for (String dependency : dependencies(pieces)) this.generate(dependency);
+
+		int count = pieces.length;
+		boolean pawns = Tablebase.hasPawns(pieces, count);
+		byte[] values = new byte[(int) Tablebase.size(count, pawns)];
+		long start = System.nanoTime();
+		this.pool.invoke(new Pass(pieces, values, 0, values.length, 0));
+		// stop after two plies without changes, unless a capture or promotion can still resolve positions
+		int horizon = 0;
+		int longest = 0;
+		for (int ply = 1; ply <= longest + 2 || ply <= horizon; ply++) {
+			if (ply > Tablebase.MAX_DISTANCE) throw new IllegalStateException(signature + " has mates longer than " + Tablebase.MAX_DISTANCE + " plies");
+			long[] result = this.pool.invoke(new Pass(pieces, values, 0, values.length, ply));
+			if (result[0] != 0) longest = ply;
+			horizon = Math.max(horizon, (int) result[1]);
+		}
+
+		this.directory.mkdirs();
+		File file = this.tablebase.file(signature);
+		File temporary = new File(file.getPath() + ".tmp");
+		try (OutputStream out = new FileOutputStream(temporary)) {
+			out.write(values);
+		}
+		if (!temporary.renameTo(file)) throw new IOException("Cannot rename " + temporary + " to " + file);
+		if (this.verbose) {
+			System.out.println(String.format("%-6s %9d positions, longest mate %3d plies, %d ms", signature, values.length,
+					longest, (System.nanoTime() - start) / 1000000));
+		}
+	}
+
+	/**
+	 * Generates every table of up to the given number of pieces.
+	 *
+	 * @param maxPieces 3 or 4
+	 * @throws IOException if a table cannot be written
+	 */
+	public void generateAll(int maxPieces) throws IOException {
+		String letters = "QRBNP";
+		for (int i = 0; i < letters.length(); i++) {
+			this.generate("K" + letters.charAt(i) + "K");
+		}
+		if (maxPieces < 4) return;
+		for (int i = 0; i < letters.length(); i++) {
+			for (int j = i; j < letters.length(); j++) {
+				this.generate("K" + letters.charAt(i) + letters.charAt(j) + "K");
+				this.generate("K" + letters.charAt(i) + "K" + letters.charAt(j));
+			}
+		}
+	}
+
+	/**
+	 * Stops the generator's threads.
+	 */
+	public void shutdown() {
+		this.pool.shutdown();
+	}
+
+	/**
+	 * Parses a signature into its sorted pieces.
+	 *
+	 * @param signature material signature, eg. "KQKR"
+	 * @return color * 6 + type of each piece, in Tablebase sort order
+	 * @throws IllegalArgumentException if the signature is not of 3 or 4 pieces with the stronger side first
+	 */
+	static int[] parse(String signature) {
+		int blackKing = signature.indexOf('K', 1);
+		if (!signature.startsWith("K") || blackKing == -1 || signature.length() < 3
+				|| signature.length() > Tablebase.MAX_PIECES) {
+			throw new IllegalArgumentException("Not a signature of 3 to " + Tablebase.MAX_PIECES + " pieces: " + signature);
+		}
+		int[] pieces = new int[signature.length()];
+		int[] squares = new int[pieces.length];
+		for (int i = 0; i < pieces.length; i++) {
+			int type = TYPE_LETTERS.indexOf(signature.charAt(i));
+			if (type == -1 || (type == Board.KING) != (i == 0 || i == blackKing)) {
+				throw new IllegalArgumentException("Not a signature: " + signature);
+			}
+			pieces[i] = (i < blackKing ? Board.WHITE : Board.BLACK) * 6 + type;
+		}
+		Tablebase.sort(pieces, squares, pieces.length);
+		if (!Tablebase.isCanonical(pieces, pieces.length) || !Tablebase.signature(pieces, pieces.length).equals(signature)) {
+			throw new IllegalArgumentException("Not a signature with the stronger side first, strongest pieces first: " + signature);
+		}
+		return pieces;
+	}
+
+	/**
+	 * Signatures a table converts into: each capture of a piece other than a king and each promotion,
+	 * with or without a capture.
+	 *
+	 * @param pieces sorted pieces of the table
+	 * @return signatures of 3 or more pieces, stronger side first
+	 */
+	private static List<String> dependencies(int[] pieces) {
+		List<String> result = new ArrayList<>();
+		for (int captured = -1; captured < pieces.length; captured++) {
+			if (captured == 0 || captured == 1) continue;
+			for (int pawn = -1; pawn < pieces.length; pawn++) {
+				if (pawn != -1 && (pawn == captured || pieces[pawn] % 6 != Board.PAWN)) continue;
+				if (pawn != -1 && captured != -1 && pieces[pawn] / 6 == pieces[captured] / 6) continue;
+				if (pawn == -1 && captured == -1) continue;
+				for (int promotion : pawn == -1 ? new int[]{-1} : PROMOTIONS) {
+					int[] child = new int[pieces.length];
+					int n = 0;
+					for (int i = 0; i < pieces.length; i++) {
+						if (i != captured) child[n++] = i == pawn ? (pieces[i] / 6) * 6 + promotion : pieces[i];
+					}
+					if (n < 3) continue;
+					String signature = canonicalSignature(child, n);
+					if (!result.contains(signature)) result.add(signature);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Signature of pieces as stored, the stronger side as white.
+	 *
+	 * @param pieces color * 6 + type of each piece
+	 * @param count number of pieces
+	 * @return the signature
+	 */
+	private static String canonicalSignature(int[] pieces, int count) {
+		int[] squares = new int[count];
+		Tablebase.sort(pieces, squares, count);
+		if (!Tablebase.isCanonical(pieces, count)) {
+			for (int i = 0; i < count; i++) pieces[i] = (pieces[i] + 6) % 12;
+			Tablebase.sort(pieces, squares, count);
+		}
+		return Tablebase.signature(pieces, count);
+	}
+
+	/**
+	 * One pass over a range of a table: ply 0 marks the invalid positions, checkmates and stalemates,
+	 * ply n resolves the positions which mate (n odd) or are mated (n even) in n plies.
+	 * The result is the number of positions resolved and the latest ply at which a capture or promotion
+	 * can still resolve a position.
+	 */
+	private final class Pass extends RecursiveTask<long[]> {
+		private static final long serialVersionUID = 1L;
+
+		private final int[] pieces;
+		private final byte[] values;
+		private final int from;
+		private final int to;
+		private final int ply;
+
+		Pass(int[] pieces, byte[] values, int from, int to, int ply) {
+			this.pieces = pieces;
+			this.values = values;
+			this.from = from;
+			this.to = to;
+			this.ply = ply;
+		}
+
+		@Override
+		protected long[] compute() {
+			if (this.to - this.from > TASK_SIZE) {
+				int mid = (this.from + this.to) >>> 1;
+				Pass left = new Pass(this.pieces, this.values, this.from, mid, this.ply);
+				left.fork();
+				long[] right = new Pass(this.pieces, this.values, mid, this.to, this.ply).compute();
+				long[] result = left.join();
+				return new long[]{result[0] + right[0], Math.max(result[1], right[1])};
+			}
+			Position p = new Position(TablebaseGenerator.this.tablebase, this.pieces, this.values);
+			long resolved = 0;
+			for (int i = this.from; i < this.to; i++) {
+				if (this.values[i] != Tablebase.DRAW) continue;
+				int value = this.ply == 0 ? p.classify(i) : p.resolve(i, this.ply);
+				if (value != Tablebase.DRAW) {
+					this.values[i] = (byte) value;
+					resolved++;
+				}
+			}
+			return new long[]{resolved, p.horizon};
+		}
+	}
+
+	/**
+	 * A position of the table being generated, decoded from its index, with the moves of up to four
+	 * pieces generated directly from Attacks.
+	 */
+	private static final class Position {
+		private final Tablebase tablebase;
+		private final int[] pieces;
+		private final byte[] values;
+		private final int count;
+		private final boolean pawns;
+
+		/** Squares of the pieces, and the side to move, of the position decoded last. */
+		private final int[] squares;
+		private int stm;
+
+		/** Scratch space for the pieces after a capture or promotion. */
+		private final int[] childPieces;
+		private final int[] childSquares;
+
+		/** Latest ply at which a capture or promotion seen so far can resolve a position. */
+		long horizon;
+
+		Position(Tablebase tablebase, int[] pieces, byte[] values) {
+			this.tablebase = tablebase;
+			this.pieces = pieces;
+			this.values = values;
+			this.count = pieces.length;
+			this.pawns = Tablebase.hasPawns(pieces, this.count);
+			this.squares = new int[this.count];
+			this.childPieces = new int[this.count];
+			this.childSquares = new int[this.count];
+		}
+
+		/**
+		 * Finds the value of a position before the first ply: INVALID if it cannot occur, the mated value
+		 * for checkmate, STALEMATE, or DRAW if it has legal moves.
+		 *
+		 * @param index index into the table
+		 * @return table value
+		 */
+		int classify(int index) {
+			this.stm = Tablebase.decode(index, this.squares, this.count, this.pawns);
+			long occupied = 0;
+			for (int i = 0; i < this.count; i++) {
+				long bit = 1L << this.squares[i];
+				if ((occupied & bit) != 0) return Tablebase.INVALID;
+				occupied |= bit;
+				if (this.pieces[i] % 6 == Board.PAWN && (this.squares[i] < 8 || this.squares[i] >= 56)) return Tablebase.INVALID;
+			}
+			if (this.attacked(this.squares[this.stm ^ 1], this.stm, occupied, -1)) return Tablebase.INVALID;
+			if (this.hasLegalMove(occupied)) return Tablebase.DRAW;
+			return this.attacked(this.squares[this.stm], this.stm ^ 1, occupied, -1) ? 1 : Tablebase.STALEMATE;
+		}
+
+		/**
+		 * Finds whether an unresolved position is resolved at a ply: on odd plies it mates in ply plies if
+		 * a move leads to a position mated in ply - 1, on even plies it is mated in ply plies if every move
+		 * leads to a position which mates, the slowest in ply - 1.
+		 *
+		 * @param index index into the table
+		 * @param ply ply being resolved
+		 * @return the new table value, DRAW if still unresolved
+		 */
+		int resolve(int index, int ply) {
+			this.stm = Tablebase.decode(index, this.squares, this.count, this.pawns);
+			long occupied = 0;
+			for (int i = 0; i < this.count; i++) occupied |= 1L << this.squares[i];
+			boolean mating = (ply & 1) == 1;
+			int slowest = 0;
+			for (int i = 0; i < this.count; i++) {
+				if (this.pieces[i] / 6 != this.stm) continue;
+				int from = this.squares[i];
+				int type = this.pieces[i] % 6;
+				long targets = this.targets(i, occupied);
+				for (; targets != 0; targets &= targets - 1) {
+					int to = Long.numberOfTrailingZeros(targets);
+					boolean promotes = type == Board.PAWN && (to < 8 || to >= 56);
+					for (int k = 0; k < (promotes ? PROMOTIONS.length : 1); k++) {
+						int value = this.child(i, from, to, promotes ? PROMOTIONS[k] : -1, occupied);
+						if (value == -1) continue;
+						// a child value v is the child's distance to mate plus one
+						boolean childMated = value != Tablebase.DRAW && value != Tablebase.STALEMATE && (value & 1) == 1;
+						boolean childMates = value != Tablebase.DRAW && value != Tablebase.STALEMATE && (value & 1) == 0;
+						if (mating) {
+							if (childMated && value == ply) return ply + 1;
+						} else {
+							if (!childMates || value > ply) return Tablebase.DRAW;
+							slowest = Math.max(slowest, value);
+						}
+					}
+				}
+			}
+			return !mating && slowest == ply ? ply + 1 : Tablebase.DRAW;
+		}
+
+		/**
+		 * Plays a move and looks up the value of the position it leads to.
+		 *
+		 * @param mover index of the piece moving
+		 * @param from square it moves from
+		 * @param to square it moves to
+		 * @param promotion type it promotes to, -1 if none
+		 * @param occupied squares of all pieces
+		 * @return table value of the child position, -1 if the move is illegal
+		 */
+		private int child(int mover, int from, int to, int promotion, long occupied) {
+			int captured = -1;
+			for (int j = 0; j < this.count; j++) {
+				if (j != mover && this.squares[j] == to) captured = j;
+			}
+			long after = (occupied & ~(1L << from)) | (1L << to);
+			this.squares[mover] = to;
+			boolean legal = !this.attacked(this.squares[this.stm], this.stm ^ 1, after, captured);
+			int value = -1;
+			if (legal && captured == -1 && promotion == -1) {
+				value = this.values[(int) Tablebase.index(this.stm ^ 1, this.squares, this.count, this.pawns)] & 0xFF;
+			} else if (legal) {
+				int n = 0;
+				for (int j = 0; j < this.count; j++) {
+					if (j == captured) continue;
+					this.childPieces[n] = j == mover && promotion != -1 ? this.stm * 6 + promotion : this.pieces[j];
+					this.childSquares[n++] = this.squares[j];
+				}
+				value = this.tablebase.lookup(this.stm ^ 1, this.childPieces, this.childSquares, n);
+				if (value == Tablebase.NOT_FOUND) throw new IllegalStateException("Missing table for a capture or promotion");
+				if (value != Tablebase.DRAW && value != Tablebase.STALEMATE) this.horizon = Math.max(this.horizon, value);
+			}
+			this.squares[mover] = from;
+			return value;
+		}
+
+		/**
+		 * Whether the side to move has a legal move.
+		 *
+		 * @param occupied squares of all pieces
+		 * @return true if it has one
+		 */
+		private boolean hasLegalMove(long occupied) {
+			for (int i = 0; i < this.count; i++) {
+				if (this.pieces[i] / 6 != this.stm) continue;
+				int from = this.squares[i];
+				for (long targets = this.targets(i, occupied); targets != 0; targets &= targets - 1) {
+					int to = Long.numberOfTrailingZeros(targets);
+					int captured = -1;
+					for (int j = 0; j < this.count; j++) {
+						if (j != i && this.squares[j] == to) captured = j;
+					}
+					this.squares[i] = to;
+					boolean legal = !this.attacked(this.squares[this.stm], this.stm ^ 1, (occupied & ~(1L << from)) | (1L << to), captured);
+					this.squares[i] = from;
+					if (legal) return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Squares a piece of the side to move can move to, not yet checked for leaving its king in check.
+		 *
+		 * @param i index of the piece
+		 * @param occupied squares of all pieces
+		 * @return bitboard of destinations
+		 */
+		private long targets(int i, long occupied) {
+			int sq = this.squares[i];
+			// the enemy king is never a target, a position where it could be taken is invalid
+			long blocked = 1L << this.squares[this.stm ^ 1];
+			long enemy = 0;
+			for (int j = 0; j < this.count; j++) {
+				if (this.pieces[j] / 6 == this.stm) blocked |= 1L << this.squares[j];
+				else enemy |= 1L << this.squares[j];
+			}
+			switch (this.pieces[i] % 6) {
+				case Board.PAWN:
+					int forward = this.stm == Board.WHITE ? sq - 8 : sq + 8;
+					long pushes = 0;
+					if ((occupied & (1L << forward)) == 0) {
+						pushes = 1L << forward;
+						int start = this.stm == Board.WHITE ? 6 : 1;
+						int twice = this.stm == Board.WHITE ? sq - 16 : sq + 16;
+						if (sq >>> 3 == start && (occupied & (1L << twice)) == 0) pushes |= 1L << twice;
+					}
+					return pushes | (Attacks.pawn(this.stm, sq) & enemy & ~blocked);
+				case Board.KNIGHT:
+					return Attacks.knight(sq) & ~blocked;
+				case Board.BISHOP:
+					return Attacks.bishop(sq, occupied) & ~blocked;
+				case Board.ROOK:
+					return Attacks.rook(sq, occupied) & ~blocked;
+				case Board.QUEEN:
+					return Attacks.queen(sq, occupied) & ~blocked;
+				default:
+					return Attacks.king(sq) & ~blocked;
+			}
+		}
+
+		/**
+		 * Whether a square is attacked by a color.
+		 *
+		 * @param target square
+		 * @param color attacking color
+		 * @param occupied squares of all pieces
+		 * @param skip index of a piece to leave out (just captured), -1 for none
+		 * @return true if any piece of that color attacks the square
+		 */
+		private boolean attacked(int target, int color, long occupied, int skip) {
+			long bit = 1L << target;
+			for (int j = 0; j < this.count; j++) {
+				if (j == skip || this.pieces[j] / 6 != color) continue;
+				int sq = this.squares[j];
+				long attacks;
+				switch (this.pieces[j] % 6) {
+					case Board.PAWN:
+						attacks = Attacks.pawn(color, sq);
+						break;
+					case Board.KNIGHT:
+						attacks = Attacks.knight(sq);
+						break;
+					case Board.BISHOP:
+						attacks = Attacks.bishop(sq, occupied);
+						break;
+					case Board.ROOK:
+						attacks = Attacks.rook(sq, occupied);
+						break;
+					case Board.QUEEN:
+						attacks = Attacks.queen(sq, occupied);
+						break;
+					default:
+						attacks = Attacks.king(sq);
+						break;
+				}
+				if ((attacks & bit) != 0) return true;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Generates tables into a directory.
+	 * Usage: TablebaseGenerator directory [signature ...] [-threads N], every 3 and 4 piece table if no
+	 * signature is given
+	 *
+	 * @param args see usage
+	 * @throws IOException if a table cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: TablebaseGenerator directory [signature ...] [-threads N]");
+			return;
+		}
+		int threads = Runtime.getRuntime().availableProcessors();
+		List<String> signatures = new ArrayList<>();
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].equals("-threads")) threads = Integer.parseInt(args[++i]);
+			else signatures.add(args[i]);
+		}
+		TablebaseGenerator generator = new TablebaseGenerator(new File(args[0]), threads);
+		generator.verbose = true;
+		try {
+			if (signatures.isEmpty()) generator.generateAll(Tablebase.MAX_PIECES);
+			for (String signature : signatures) generator.generate(signature);
+		} finally {
+			generator.shutdown();
+		}
+	}
+}
@@ -15,6 +15,7 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import chess.Board;
+import chess.MoveResult;
 
 /**
  * Main activity for chess, contains a chessView for the board
@@ -281,8 +282,7 @@ public class Chess extends AppCompatActivity {
      * @param view the view
      */
     public void undo(View view) {
-//        boolean result = chessBoard.undoMove();
-        boolean result = chessBoard.undoLimited();
+        boolean result = chessBoard.undoMove();
         if (result) {
             turnCount--;
             displayTurn();
@@ -296,7 +296,8 @@ public class Chess extends AppCompatActivity {
      * @param view the view
      */
     public void ai(View view) {
-        chessBoard.makeMove();
+        MoveResult result = chessBoard.makeMove();
+        chessView.showResult(result);
         chessView.drawBoard();
     }
 
@@ -17,6 +17,7 @@ import android.widget.Toast;
 import androidx.constraintlayout.widget.ConstraintLayout;
 
 import chess.Board;
+import chess.MoveResult;
 
 /**
  * Creates the board image and moves pieces as the game plays.
@@ -183,49 +184,8 @@ public class ChessView extends View implements View.OnTouchListener {
 
 //                Log.d("msg",  srcY + ", " + srcX + " to " + destY + ", " + destX);
 
-                String result = chessBoard.takeTurn(srcX, srcY, destX, destY);
-                Log.d("board", "result: " + result);
-
-
-                if (!result.equals("Success")) {
-                    switch (result) {
-                        case "Checkmate":
-//                            chess.winner = chessBoard.getTurn() + " wins";
-                            if (chessBoard.getTurn().equals("White")) {
-                                chess.winner = "Black wins";
-                            } else {
-                                chess.winner = "White wins";
-                            }
-                            chess.endGame();
-
-                            break;
-                        case "Stalemate":
-                            chess.winner = "Stalemate";
-                            chess.endGame();
-                            break;
-                        default:
-                            Log.d("msg", "error: " + result);
-                            Toast toast = Toast.makeText(getContext(), result, Toast.LENGTH_SHORT);
-                            toast.show();
-                            break;
-                    }
-                } else {
-                    Log.d("board", "successful move");
-
-                    // move
-                    drawBoard();
-                    if (chessBoard.getTurn().equals("White")) {
-                        turn.setText(R.string.turn_white);
-                    } else {
-                        turn.setText(R.string.turn_black);
-                    }
-                }
-
-                if (chessBoard.isInCheck()) {
-                    Log.d("board", "check");
-                    Toast toast = Toast.makeText(getContext(), "check", Toast.LENGTH_SHORT);
-                    toast.show();
-                }
+                MoveResult result = chessBoard.takeTurn(srcX, srcY, destX, destY, Board.QUEEN);
+                showResult(result);
 
                 Log.d("board", "board" + "\n" + chessBoard.toString());
 
@@ -243,48 +203,70 @@ public class ChessView extends View implements View.OnTouchListener {
     }
 
     /**
-     * Used when a pawn is promoted.
+     * Shows what became of a move: ends the game, shows why the move was refused, or updates the turn
+     * and warns of check.
+     *
+     * @param result the result of the move
      */
-    public void finishPromotion() {
-        if (destX != srcX || destY != srcY) {
-            Log.d("msg",  srcY + ", " + srcX + " to " + destY + ", " + destX + " to " + chess.promoteTo);
-
-            String result = chessBoard.takeTurn(srcX, srcY, destX, destY, chess.promoteTo);
-            Log.d("board", "result: " + result);
-
-            if (!result.equals("Success")) {
-                switch (result) {
-                    case "Checkmate":
-                        chess.winner = chessBoard.getTurn() + " wins";
-                        chess.endGame();
-
-                        break;
-                    case "Stalemate":
-                        chess.winner = "Stalemate";
-                        chess.endGame();
-                        break;
-                    default:
-                        Toast toast = Toast.makeText(getContext(), result, Toast.LENGTH_SHORT);
-                        toast.show();
-                        break;
-                }
-            } else {
+    void showResult(MoveResult result) {
+        Log.d("board", "result: " + result);
+        switch (result) {
+            case SUCCESS:
+            case CHECK:
                 Log.d("board", "successful move");
+
                 // move
                 drawBoard();
-                if (chessBoard.getTurn().equals("White")) {
+                if (chessBoard.getSideToMove() == Board.WHITE) {
                     turn.setText(R.string.turn_white);
                 } else {
                     turn.setText(R.string.turn_black);
                 }
+                break;
+            case CHECKMATE:
+                // the turn has passed to the player who was checkmated
+                if (chessBoard.getSideToMove() == Board.WHITE) {
+                    chess.winner = "Black wins";
+                } else {
+                    chess.winner = "White wins";
+                }
+                chess.endGame();
+                break;
+            case STALEMATE:
+                chess.winner = "Stalemate";
+                chess.endGame();
+                break;
+            case REPETITION:
+                chess.winner = "Draw by repetition";
+                chess.endGame();
+                break;
+            case FIFTY_MOVE_RULE:
+                chess.winner = "Draw by fifty-move rule";
+                chess.endGame();
+                break;
+            default:
+                Log.d("msg", "error: " + result.getMessage());
+                Toast toast = Toast.makeText(getContext(), result.getMessage(), Toast.LENGTH_SHORT);
+                toast.show();
+                break;
+        }
 
-            }
+        if (result.isCheck()) {
+            Log.d("board", "check");
+            Toast toast = Toast.makeText(getContext(), "check", Toast.LENGTH_SHORT);
+            toast.show();
+        }
+    }
 
-            if (chessBoard.isInCheck()) {
-                Log.d("board", "check");
-                Toast toast = Toast.makeText(getContext(), "check", Toast.LENGTH_SHORT);
-                toast.show();
-            }
+    /**
+     * Used when a pawn is promoted.
+     */
+    public void finishPromotion() {
+        if (destX != srcX || destY != srcY) {
+            Log.d("msg",  srcY + ", " + srcX + " to " + destY + ", " + destX + " to " + chess.promoteTo);
+
+            MoveResult result = chessBoard.takeTurn(srcX, srcY, destX, destY, Board.promotionType(chess.promoteTo));
+            showResult(result);
             Log.d("board", "board" + "\n" + chessBoard.toString());
 
         }
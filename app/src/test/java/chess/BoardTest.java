@@ -0,0 +1,189 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of Board: moves taken back or undone leave the position as it was, exchanges are valued correctly
+ * and draws by repetition and the fifty-move rule are found.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public class BoardTest {
+	/**
+	 * A short opening as row, column, destination row and destination column, which gives an en passant
+	 * capture after the fourth move and castling on both sides later.
+	 */
+	static final int[][] OPENING = {
+		{6, 4, 4, 4}, {1, 3, 3, 3}, {4, 4, 3, 4}, {1, 5, 3, 5}, {7, 6, 5, 5}, {0, 1, 2, 2},
+		{7, 5, 6, 4}, {0, 2, 2, 4}, {7, 4, 7, 6}, {0, 3, 1, 3}
+	};
+
+	@Test
+	public void unmakeMove_restoresPosition() {
+		Board b = new Board();
+		MoveList moves = new MoveList();
+		Board.UndoInfo undo = new Board.UndoInfo();
+		for (int[] turn : OPENING) {
+			String before = state(b);
+			moves.clear();
+			b.generateMoves(moves);
+			for (int i = 0; i < moves.size(); i++) {
+				int move = moves.get(i);
+				b.makeMove(move, undo);
+				assertNotEquals(Move.toString(move), before, state(b));
+				b.unmakeMove(move, undo);
+				assertEquals(Move.toString(move), before, state(b));
+			}
+			assertEquals("Success", b.takeTurn(turn[0], turn[1], turn[2], turn[3]));
+		}
+	}
+
+	@Test
+	public void undoAndRedo_restorePositions() {
+		Board b = new Board();
+		List<String> fens = new ArrayList<>();
+		List<Long> hashes = new ArrayList<>();
+		fens.add(b.toFen());
+		hashes.add(b.hash());
+		Random random = new Random(1);
+		MoveList moves = new MoveList();
+		for (int i = 0; i < 80; i++) {
+			moves.clear();
+			b.generateLegalMoves(moves);
+			if (moves.size() == 0) break;
+			int move = moves.get(random.nextInt(moves.size()));
+			int from = Move.getFrom(move);
+			int to = Move.getTo(move);
+			int promotion = Move.getPromotion(move) == 0 ? Board.QUEEN : Move.getPromotion(move);
+			MoveResult result = b.takeTurn(from / 8, from % 8, to / 8, to % 8, promotion);
+			assertTrue(result.toString(), result.isMoveMade());
+			fens.add(b.toFen());
+			hashes.add(b.hash());
+			if (result.isGameOver()) break;
+		}
+		int plies = b.getPly();
+
+		for (int ply = plies - 1; ply >= 0; ply--) {
+			assertTrue(b.undoMove());
+			assertEquals(fens.get(ply), b.toFen());
+			assertEquals((long) hashes.get(ply), b.hash());
+		}
+		assertFalse(b.undoMove());
+		for (int ply = 1; ply <= plies; ply++) {
+			assertTrue(b.redoMove());
+			assertEquals(fens.get(ply), b.toFen());
+			assertEquals((long) hashes.get(ply), b.hash());
+		}
+		assertFalse(b.redoMove());
+
+		for (int ply = plies; ply >= 0; ply -= 3) {
+			assertTrue(b.undoTo(ply));
+			assertEquals(fens.get(ply), b.toFen());
+			assertEquals((long) hashes.get(ply), b.hash());
+		}
+		assertTrue(b.undoTo(plies));
+		assertEquals(fens.get(plies), b.toFen());
+		assertFalse(b.undoTo(plies + 1));
+	}
+
+	@Test
+	public void printGameAsMoves_listsMovesTaken() {
+		Board b = new Board();
+		assertEquals("Success", b.takeTurn(6, 4, 4, 4));
+		assertEquals("Success", b.takeTurn(1, 4, 3, 4));
+		assertEquals("e2 e4\ne7 e5\n", b.printGameAsMoves());
+		assertTrue(b.undoMove());
+		assertEquals("e2 e4\n", b.printGameAsMoves());
+	}
+
+	@Test
+	public void takeTurn_threefoldRepetition() {
+		Board b = new Board();
+		// Ng1-f3, Ng8-f6, Nf3-g1, Nf6-g8 twice brings the start position back a third time
+		int[][] moves = {{7, 6, 5, 5}, {0, 6, 2, 5}, {5, 5, 7, 6}, {2, 5, 0, 6}};
+		MoveResult result = null;
+		for (int k = 0; k < 2; k++) {
+			for (int[] m : moves) {
+				assertFalse(b.isRepetition(2));
+				result = b.takeTurn(m[0], m[1], m[2], m[3], Board.QUEEN);
+			}
+		}
+		assertEquals(MoveResult.REPETITION, result);
+		assertTrue(b.isRepetition(2));
+		assertTrue(result.isMoveMade());
+		assertTrue(result.isGameOver());
+	}
+
+	@Test
+	public void takeTurn_fiftyMoveRule() {
+		Board b = Board.fromFen("4k3/8/8/8/8/8/8/R3K3 w - - 99 60");
+		assertEquals(MoveResult.FIFTY_MOVE_RULE, b.takeTurn(7, 0, 6, 0, Board.QUEEN));
+	}
+
+	@Test
+	public void takeTurn_reportsCheckAndRefusals() {
+		Board b = Board.fromFen("4k3/8/8/8/8/8/8/R3K3 w - - 0 1");
+		MoveResult refused = b.takeTurn(7, 0, 6, 1, Board.QUEEN);
+		assertEquals(MoveResult.INVALID_MOVE, refused);
+		assertFalse(refused.isMoveMade());
+		assertFalse(refused.isGameOver());
+		MoveResult check = b.takeTurn(7, 0, 0, 0, Board.QUEEN);
+		assertEquals(MoveResult.CHECK, check);
+		assertTrue(check.isMoveMade());
+		assertTrue(check.isCheck());
+		assertFalse(check.isGameOver());
+	}
+
+	@Test
+	public void takeTurn_checkIsSuccessAsString() {
+		Board b = Board.fromFen("4k3/8/8/8/8/8/8/R3K3 w - - 0 1");
+		assertEquals("Success", b.takeTurn(7, 0, 0, 0));
+	}
+
+	@Test
+	public void see_knownExchanges() {
+		// rook takes a pawn defended by nothing
+		assertEquals(100, see("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1", "e1 e5"));
+		// knight takes a pawn and is lost for it
+		assertEquals(-200, see("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1", "d3 e5"));
+		// pawn takes a pawn defended by a pawn
+		assertEquals(0, see("4k3/8/2p5/3p4/4P3/8/8/4K3 w - - 0 1", "e4 d5"));
+		// queen takes a pawn defended by a pawn
+		assertEquals(-700, see("4k3/8/2p5/3p4/4P3/8/8/3QK3 w - - 0 1", "d1 d5"));
+	}
+
+	/**
+	 * Everything makeMove changes about a position.
+	 *
+	 * @param b board
+	 * @return text of the pieces, castling rights, en passant square, side to move and hash
+	 */
+	static String state(Board b) {
+		return b + "castling " + b.getCastlingRights() + ", en passant " + b.getEnPassantSquare() + ", " + b.getTurn()
+				+ ", hash " + Long.toHexString(b.hash());
+	}
+
+	/**
+	 * Static exchange value of a move given as text.
+	 *
+	 * @param fen position
+	 * @param text move in Move.toString form
+	 * @return Board.see of the move
+	 */
+	private static int see(String fen, String text) {
+		Board b = Board.fromFen(fen);
+		MoveList moves = new MoveList();
+		b.generateLegalMoves(moves);
+		for (int i = 0; i < moves.size(); i++) {
+			if (Move.toString(moves.get(i)).equals(text)) return b.see(moves.get(i));
+		}
+		throw new AssertionError("No move " + text + " in " + fen);
+	}
+}
@@ -0,0 +1,76 @@
+package chess;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the Zobrist hash Board keeps: it matches a recompute after every move, and equal positions
+ * hash equal however they were reached.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public class ZobristTest {
+	@Test
+	public void verifyHash_acceptsEveryMove() {
+		Board.setVerifyHash(true);
+		try {
+			Board b = new Board();
+			MoveList moves = new MoveList();
+			Board.UndoInfo undo = new Board.UndoInfo();
+			for (int[] turn : BoardTest.OPENING) {
+				moves.clear();
+				b.generateMoves(moves);
+				for (int i = 0; i < moves.size(); i++) {
+					b.makeMove(moves.get(i), undo);
+					assertEquals(Move.toString(moves.get(i)), b.computeHash(), b.hash());
+					b.unmakeMove(moves.get(i), undo);
+				}
+				assertEquals("Success", b.takeTurn(turn[0], turn[1], turn[2], turn[3]));
+				assertEquals(b.computeHash(), b.hash());
+			}
+		} finally {
+			Board.setVerifyHash(false);
+		}
+	}
+
+	@Test
+	public void transpositions_hashEqual() {
+		// Ng1-f3, Nb8-c6, Nb1-c3 and Nb1-c3, Nb8-c6, Ng1-f3
+		Board a = play(new int[][]{{7, 6, 5, 5}, {0, 1, 2, 2}, {7, 1, 5, 2}});
+		Board b = play(new int[][]{{7, 1, 5, 2}, {0, 1, 2, 2}, {7, 6, 5, 5}});
+		assertEquals(a.hash(), b.hash());
+		assertNotEquals(new Board().hash(), a.hash());
+	}
+
+	@Test
+	public void enPassantFile_onlyCountsWhenCapturable() {
+		// Ng1-f3, a7-a5, e2-e4, which no black pawn can take en passant, and the same pawns moved in two steps
+		Board a = play(new int[][]{{7, 6, 5, 5}, {1, 0, 3, 0}, {6, 4, 4, 4}});
+		Board b = play(new int[][]{{7, 6, 5, 5}, {1, 0, 2, 0}, {6, 4, 5, 4}, {2, 0, 3, 0}, {5, 4, 4, 4}});
+		assertEquals(a.toString(), b.toString());
+		assertEquals(a.hash(), b.hash());
+	}
+
+	@Test
+	public void sideToMove_changesHash() {
+		// e2-e4 with black to move, and e2-e3-e4 while a black knight goes out and back, with white to move
+		Board a = play(new int[][]{{6, 4, 4, 4}});
+		Board b = play(new int[][]{{6, 4, 5, 4}, {0, 1, 2, 2}, {5, 4, 4, 4}, {2, 2, 0, 1}});
+		assertEquals(a.toString(), b.toString());
+		assertNotEquals(a.hash(), b.hash());
+	}
+
+	/**
+	 * Plays moves from the start position.
+	 *
+	 * @param turns row, column, destination row and destination column of each move
+	 * @return the board after the moves
+	 */
+	private static Board play(int[][] turns) {
+		Board b = new Board();
+		for (int[] turn : turns) assertEquals("Success", b.takeTurn(turn[0], turn[1], turn[2], turn[3]));
+		return b;
+	}
+}
@@ -0,0 +1,71 @@
+package chess.engine;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import chess.Board;
+import chess.Move;
+import chess.MoveList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks Board's running evaluation totals against a full re-evaluation after every move and every take-back.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public class EvaluationTest {
+	/** Positions with castling, en passant and promotions close at hand. */
+	private static final String[] FENS = {
+		"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+		"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+		"n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1"
+	};
+
+	@Test
+	public void runningTotals_matchFullEvaluation() {
+		Random random = new Random(16);
+		MoveList moves = new MoveList();
+		Board.UndoInfo undo = new Board.UndoInfo();
+		for (String fen : FENS) {
+			Board b = Board.fromFen(fen);
+			for (int ply = 0; ply < 200; ply++) {
+				moves.clear();
+				b.generateLegalMoves(moves);
+				if (moves.size() == 0) break;
+				for (int i = 0; i < moves.size(); i++) {
+					int move = moves.get(i);
+					b.makeMove(move, undo);
+					assertTotals(Move.toString(move), b);
+					b.unmakeMove(move, undo);
+					assertTotals(Move.toString(move) + " taken back", b);
+				}
+				b.makeMove(moves.get(random.nextInt(moves.size())), new Board.UndoInfo());
+			}
+		}
+	}
+
+	@Test
+	public void startPosition_isLevelAndFullPhase() {
+		Board b = new Board();
+		assertEquals(0, b.getMiddlegameScore());
+		assertEquals(0, b.getEndgameScore());
+		assertEquals(Evaluation.MAX_PHASE, b.getPhase());
+		assertEquals(0, Evaluation.evaluate(b));
+	}
+
+	/**
+	 * Asserts that a board's running totals are those of a full re-evaluation.
+	 *
+	 * @param message text identifying the position
+	 * @param b board to check
+	 */
+	private static void assertTotals(String message, Board b) {
+		int[] totals = Evaluation.evaluateFromScratch(b);
+		assertEquals(message + " middlegame", totals[0], b.getMiddlegameScore());
+		assertEquals(message + " endgame", totals[1], b.getEndgameScore());
+		assertEquals(message + " phase", totals[2], b.getPhase());
+	}
+}
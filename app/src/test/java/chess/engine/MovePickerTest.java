@@ -0,0 +1,80 @@
+package chess.engine;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import chess.Board;
+import chess.Move;
+import chess.MoveList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the order the move picker hands out moves in: hash move, captures, killers, then quiet moves.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public class MovePickerTest {
+	/** White can take a queen, a rook or a pawn, and has quiet rook, knight, king and pawn moves. */
+	private static final String FEN = "r7/4k3/8/5q2/4P3/1p6/7K/R1N5 w - - 0 1";
+
+	@Test
+	public void next_returnsStagesInOrder() {
+		Board board = Board.fromFen(FEN);
+		int[] history = new int[2 * 4096];
+		int boosted = find(board, "c1 d3");
+		history[(board.getSideToMove() << 12) | (boosted & 0xFFF)] = 1000;
+
+		MovePicker picker = new MovePicker();
+		picker.init(board, find(board, "a1 a7"), find(board, "c1 e2"), find(board, "h2 h1"), history);
+		String[] expected = {"a1 a7", "e4 f5", "a1 a8", "c1 b3", "c1 e2", "h2 h1", "c1 d3"};
+		for (String move : expected) assertEquals(move, Move.toString(picker.next()));
+
+		Set<Integer> seen = new HashSet<>();
+		for (String move : expected) seen.add(find(board, move));
+		int move;
+		while ((move = picker.next()) != Move.NONE) {
+			assertTrue("returned twice: " + Move.toString(move), seen.add(move));
+			assertFalse(Move.isCapture(move));
+		}
+		MoveList legal = new MoveList();
+		board.generateLegalMoves(legal);
+		assertEquals(legal.size(), seen.size());
+		assertEquals(Move.NONE, picker.next());
+	}
+
+	@Test
+	public void illegalHashAndKillerMoves_areSkipped() {
+		Board board = Board.fromFen(FEN);
+		MovePicker picker = new MovePicker();
+		// moves of another position, no piece stands on their from squares here
+		int bogus = Move.encode(52, 36, 0, 0);
+		picker.init(board, bogus, Move.encode(51, 35, 0, 0), Move.NONE, new int[2 * 4096]);
+		assertEquals("e4 f5", Move.toString(picker.next()));
+
+		int count = 1;
+		while (picker.next() != Move.NONE) count++;
+		MoveList legal = new MoveList();
+		board.generateLegalMoves(legal);
+		assertEquals(legal.size(), count);
+	}
+
+	/**
+	 * Finds a legal move by its string form.
+	 *
+	 * @param board position the move is played in
+	 * @param name move as Move.toString gives it
+	 * @return packed move
+	 */
+	private static int find(Board board, String name) {
+		MoveList legal = new MoveList();
+		board.generateLegalMoves(legal);
+		for (int i = 0; i < legal.size(); i++) {
+			if (Move.toString(legal.get(i)).equals(name)) return legal.get(i);
+		}
+		throw new IllegalArgumentException("Not a legal move: " + name);
+	}
+}
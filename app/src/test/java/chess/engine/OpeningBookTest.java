@@ -0,0 +1,103 @@
+package chess.engine;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import chess.Board;
+import chess.Move;
+import chess.MoveList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the Polyglot key and that a book written with OpeningBook.Writer plays its moves.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public class OpeningBookTest {
+	@Test
+	public void polyglotKey_matchesReferenceKeys() {
+		assertEquals(0x463B96181691FC9CL, key("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"));
+		// e4: the e3 square is not hashed, no black pawn can take on it
+		assertEquals(0x823C9B50FD114196L, key("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1"));
+		// e4 d5
+		assertEquals(0x0756B94461C50FB0L, key("rnbqkbnr/ppp1pppp/8/3p4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 2"));
+		// e4 d5 e5
+		assertEquals(0x662FAFB965DB29D4L, key("rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR b KQkq - 0 2"));
+		// e4 d5 e5 f5: the e5 pawn can take on f6, so the en passant file is hashed
+		assertEquals(0x22A48B5A8E47FF78L, key("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3"));
+		// e4 d5 e5 f5 Ke2: white loses both castling rights
+		assertEquals(0x652A607CA3F242C1L, key("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR b kq - 0 3"));
+		// e4 d5 e5 f5 Ke2 Kf7: so does black
+		assertEquals(0x00FDD303C946BDD9L, key("rnbq1bnr/ppp1pkpp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR w - - 0 4"));
+		// a4 b5 h4 b4 c4: the b4 pawn can take on c3
+		assertEquals(0x3C8123EA7B067637L, key("rnbqkbnr/p1pppppp/8/8/PpP4P/8/1P1PPPP1/RNBQKBNR b KQkq c3 0 3"));
+		// a4 b5 h4 b4 c4 bxc3 Ra3: white loses queenside castling only
+		assertEquals(0x5C3F9B829B279560L, key("rnbqkbnr/p1pppppp/8/8/P6P/R1p5/1P1PPPP1/1NBQKBNR b Kkq - 0 4"));
+	}
+
+	@Test
+	public void writeThenProbe() throws IOException {
+		Board start = new Board();
+		int e4 = find(start, "e2 e4");
+		int d4 = find(start, "d2 d4");
+		Board afterE4 = start.copy();
+		afterE4.makeMove(e4, new Board.UndoInfo());
+		int c5 = find(afterE4, "c7 c5");
+
+		OpeningBook.Writer writer = new OpeningBook.Writer();
+		writer.add(start, e4, 2);
+		writer.add(start, d4, 1);
+		writer.add(start, e4, 1);
+		writer.add(afterE4, c5, 1);
+		File file = File.createTempFile("book", ".bin");
+		try {
+			writer.write(file);
+			try (OpeningBook book = new OpeningBook(file)) {
+				assertEquals(3, book.size());
+				boolean playedE4 = false;
+				boolean playedD4 = false;
+				for (int i = 0; i < 200; i++) {
+					int move = book.probe(start);
+					assertTrue(Move.toString(move), move == e4 || move == d4);
+					playedE4 |= move == e4;
+					playedD4 |= move == d4;
+				}
+				assertTrue(playedE4 && playedD4);
+				assertEquals(c5, book.probe(afterE4));
+				assertEquals(Move.NONE, book.probe(Board.fromFen("4k3/8/8/8/8/8/8/4K3 w - - 0 1")));
+			}
+		} finally {
+			assertTrue(file.delete());
+		}
+	}
+
+	/**
+	 * Polyglot key of a position.
+	 *
+	 * @param fen position
+	 * @return OpeningBook.polyglotKey of the position
+	 */
+	private static long key(String fen) {
+		return OpeningBook.polyglotKey(Board.fromFen(fen));
+	}
+
+	/**
+	 * Finds a legal move given as text.
+	 *
+	 * @param b position
+	 * @param text move in Move.toString form
+	 * @return packed move
+	 */
+	private static int find(Board b, String text) {
+		MoveList moves = new MoveList();
+		b.generateLegalMoves(moves);
+		for (int i = 0; i < moves.size(); i++) {
+			if (Move.toString(moves.get(i)).equals(text)) return moves.get(i);
+		}
+		throw new AssertionError("No move " + text);
+	}
+}
@@ -0,0 +1,69 @@
+package chess.engine;
+
+import org.junit.Test;
+
+import chess.Board;
+import chess.Move;
+import chess.MoveList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the threads of a parallel search agree on a forced mate and are stopped with the main thread.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public class ParallelSearchTest {
+	@Test
+	public void mateInOne_isFoundWithHelpers() {
+		ParallelSearch search = new ParallelSearch(2, 1);
+		try {
+			int move = search.search(Board.fromFen("k7/8/1K6/8/8/8/8/7R w - - 0 1"), 4, Long.MAX_VALUE, null);
+			assertEquals("h1 h8", Move.toString(move));
+			assertEquals(Board.MATE - 1, search.getScore());
+			assertTrue(search.getDepth() <= 5);
+			assertTrue(search.getNodes(1) > 0);
+		} finally {
+			search.shutdown();
+		}
+	}
+
+	@Test
+	public void searchAfterClearHash_returnsLegalMove() {
+		ParallelSearch search = new ParallelSearch(3, 1);
+		try {
+			Board board = new Board();
+			MoveList legal = new MoveList();
+			board.generateLegalMoves(legal);
+			assertTrue(contains(legal, search.search(board, 4, Long.MAX_VALUE, null)));
+			search.clearHash();
+			assertTrue(contains(legal, search.search(board, 4, Long.MAX_VALUE, null)));
+			assertEquals(3, search.getThreads());
+		} finally {
+			search.shutdown();
+		}
+	}
+
+	@Test
+	public void noThreads_isRejected() {
+		try {
+			new ParallelSearch(0, 1);
+			fail("no exception for 0 threads");
+		} catch (IllegalArgumentException expected) {
+			// rejected as it should be
+		}
+	}
+
+	/**
+	 * Whether a list holds a move.
+	 *
+	 * @param list moves to look through
+	 * @param move move to find
+	 * @return true if the move is in the list
+	 */
+	private static boolean contains(MoveList list, int move) {
+		for (int i = 0; i < list.size(); i++) if (list.get(i) == move) return true;
+		return false;
+	}
+}
@@ -0,0 +1,48 @@
+package chess.engine;
+
+import org.junit.Test;
+
+import chess.Board;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the pawn structure scores and that a structure probed again is found in the table.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public class PawnTableTest {
+	@Test
+	public void startPosition_isLevel() {
+		PawnTable table = new PawnTable(1024);
+		int index = table.probe(new Board());
+		assertEquals(0, table.getMiddlegame(index));
+		assertEquals(0, table.getEndgame(index));
+		assertEquals(0, table.getPassedPawns(index));
+	}
+
+	@Test
+	public void sameStructure_isAHit() {
+		PawnTable table = new PawnTable(1024);
+		table.probe(new Board());
+		assertEquals(0, table.getHits());
+		// the knights moved but the pawns did not
+		table.probe(Board.fromFen("r1bqkbnr/pppppppp/2n5/8/8/5N2/PPPPPPPP/RNBQKB1R w KQkq - 2 2"));
+		assertEquals(2, table.getProbes());
+		assertEquals(1, table.getHits());
+	}
+
+	@Test
+	public void passedPawn_isMirrored() {
+		PawnTable table = new PawnTable(1024);
+		int white = table.probe(Board.fromFen("4k3/8/8/3P4/8/8/8/4K3 w - - 0 1"));
+		int whiteEndgame = table.getEndgame(white);
+		assertTrue(whiteEndgame > 0);
+		assertEquals(1L << 27, table.getPassedPawns(white));
+
+		int black = table.probe(Board.fromFen("4k3/8/8/8/3p4/8/8/4K3 w - - 0 1"));
+		assertEquals(-whiteEndgame, table.getEndgame(black));
+		assertEquals(1L << 35, table.getPassedPawns(black));
+	}
+}
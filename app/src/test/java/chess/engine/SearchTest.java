@@ -0,0 +1,50 @@
+package chess.engine;
+
+import org.junit.Test;
+
+import chess.Board;
+import chess.Move;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the search finds mates and reports positions without a legal move.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public class SearchTest {
+	private static final long NODES = 1000000;
+
+	@Test
+	public void mateInOne_isFoundAndScored() {
+		Search search = new Search(new TranspositionTable(1));
+		int move = search.search(Board.fromFen("k7/8/1K6/8/8/8/8/7R w - - 0 1"), 3, NODES);
+		assertEquals("h1 h8", Move.toString(move));
+		assertEquals(Board.MATE - 1, search.getScore());
+	}
+
+	@Test
+	public void stalemate_returnsNoMove() {
+		Search search = new Search(new TranspositionTable(1));
+		int move = search.search(Board.fromFen("k7/8/1Q6/8/8/8/8/7K b - - 0 1"), 3, NODES);
+		assertEquals(Move.NONE, move);
+		assertEquals(0, search.getScore());
+	}
+
+	@Test
+	public void checkmate_returnsNoMoveAndMatedScore() {
+		Search search = new Search(new TranspositionTable(1));
+		int move = search.search(Board.fromFen("k7/1Q6/1K6/8/8/8/8/8 b - - 0 1"), 3, NODES);
+		assertEquals(Move.NONE, move);
+		assertEquals(-Board.MATE, search.getScore());
+	}
+
+	@Test
+	public void search_leavesBoardUnchanged() {
+		Board board = new Board();
+		String before = board.toFen();
+		new Search(new TranspositionTable(1)).search(board, 3, NODES);
+		assertEquals(before, board.toFen());
+	}
+}
@@ -0,0 +1,45 @@
+package chess.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the time budgets given for a fixed move time and for a share of the clock.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public class TimeManagerTest {
+	private static final long MS = 1000000L;
+
+	@Test
+	public void moveTime_stopsAfterItsTime() throws InterruptedException {
+		assertFalse(TimeManager.moveTime(1000).isTimeUp());
+		TimeManager time = TimeManager.moveTime(11);
+		Thread.sleep(20);
+		assertTrue(time.isTimeUp());
+	}
+
+	@Test
+	public void clock_usesAShareOfTheRemainingTime() {
+		// 10 s left and no increment: about a thirtieth of it, 333 ms, for this move
+		TimeManager time = TimeManager.clock(10000, 0);
+		assertTrue(time.canStartIteration(300 * MS, 1.0));
+		assertFalse(time.canStartIteration(340 * MS, 1.0));
+	}
+
+	@Test
+	public void clock_countsTheIncrement() {
+		assertFalse(TimeManager.clock(10000, 0).canStartIteration(600 * MS, 1.0));
+		assertTrue(TimeManager.clock(10000, 1000).canStartIteration(600 * MS, 1.0));
+	}
+
+	@Test
+	public void canStartIteration_scalesByBranchingFactor() {
+		TimeManager time = TimeManager.clock(10000, 0);
+		assertTrue(time.canStartIteration(0, 1.0));
+		assertTrue(time.canStartIteration(50 * MS, 6.0));
+		assertFalse(time.canStartIteration(100 * MS, 6.0));
+	}
+}
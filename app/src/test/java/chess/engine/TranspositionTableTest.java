@@ -0,0 +1,51 @@
+package chess.engine;
+
+import org.junit.Test;
+
+import chess.Board;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that what TranspositionTable stores is found again.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public class TranspositionTableTest {
+	@Test
+	public void storeThenProbe() {
+		TranspositionTable tt = new TranspositionTable(1);
+		long key = new Board().hash();
+		assertEquals(0, tt.probe(key));
+
+		tt.store(key, 1234, -Board.MATE + 5, 7, TranspositionTable.BOUND_LOWER);
+		long data = tt.probe(key);
+		assertEquals(1234, TranspositionTable.move(data));
+		assertEquals(-Board.MATE + 5, TranspositionTable.score(data));
+		assertEquals(7, TranspositionTable.depth(data));
+		assertEquals(TranspositionTable.BOUND_LOWER, TranspositionTable.bound(data));
+		assertEquals(0, tt.probe(key ^ 1));
+	}
+
+	@Test
+	public void storeWithoutMove_keepsMove() {
+		TranspositionTable tt = new TranspositionTable(1);
+		long key = new Board().hash();
+		tt.store(key, 1234, 10, 3, TranspositionTable.BOUND_EXACT);
+		tt.store(key, 0, 20, 4, TranspositionTable.BOUND_UPPER);
+		long data = tt.probe(key);
+		assertEquals(1234, TranspositionTable.move(data));
+		assertEquals(20, TranspositionTable.score(data));
+		assertEquals(TranspositionTable.BOUND_UPPER, TranspositionTable.bound(data));
+	}
+
+	@Test
+	public void clear_forgetsEntries() {
+		TranspositionTable tt = new TranspositionTable(1);
+		long key = new Board().hash();
+		tt.store(key, 1234, 10, 3, TranspositionTable.BOUND_EXACT);
+		tt.clear();
+		assertEquals(0, tt.probe(key));
+	}
+}
@@ -0,0 +1,45 @@
+package chess.perft;
+
+import org.junit.Test;
+
+import chess.Board;
+
+import static org.junit.Assert.*;
+
+/**
+ * Counts the reference positions to a small depth, with and without the subtree cache.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public class PerftTest {
+	private static final int MAX_DEPTH = 3;
+
+	@Test
+	public void referencePositions() {
+		check(new Perft(0, 1));
+	}
+
+	@Test
+	public void referencePositions_cachedAndThreaded() {
+		check(new Perft(1, 2));
+	}
+
+	/**
+	 * Counts every reference position to MAX_DEPTH and shuts the counter down.
+	 *
+	 * @param perft counter to use
+	 */
+	private static void check(Perft perft) {
+		try {
+			for (Perft.Position position : Perft.REFERENCE_POSITIONS) {
+				for (int d = 1; d <= Math.min(MAX_DEPTH, position.getMaxDepth()); d++) {
+					assertEquals(position.getName() + " depth " + d, position.getCount(d),
+							perft.perft(Board.fromFen(position.getFen()), d));
+				}
+			}
+		} finally {
+			perft.shutdown();
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package chess.tablebase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+import chess.Board;
+
+import static org.junit.Assert.*;
+
+/**
+ * Generates the KRK table and probes it, and checks how positions are folded into table indexes.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+public class TablebaseTest {
+	@Test
+	public void generateThenProbeKRK() throws IOException {
+		File directory = Files.createTempDirectory("tablebase").toFile();
+		TablebaseGenerator generator = new TablebaseGenerator(directory, 2);
+		try {
+			generator.generate("KRK");
+			Tablebase tablebase = new Tablebase(directory);
+			// Rh1-h8 mates
+			assertEquals(Board.MATE - 1, tablebase.probe(Board.fromFen("k7/8/1K6/8/8/8/8/7R w - - 0 1")));
+			// black is mated
+			assertEquals(-Board.MATE, tablebase.probe(Board.fromFen("k6R/8/1K6/8/8/8/8/8 b - - 0 1")));
+			// black takes the rook
+			assertEquals(0, tablebase.probe(Board.fromFen("k7/1R6/8/8/8/8/8/7K b - - 0 1")));
+			// the same with the colors swapped, and without allocating
+			int[] pieces = new int[Tablebase.MAX_PIECES];
+			int[] squares = new int[Tablebase.MAX_PIECES];
+			assertEquals(Board.MATE - 1,
+					tablebase.probe(Board.fromFen("K7/8/1k6/8/8/8/8/7r b - - 0 1"), pieces, squares));
+			// no KQK table was generated
+			assertEquals(Tablebase.NOT_FOUND, tablebase.probe(Board.fromFen("k7/8/1K6/8/8/8/8/7Q w - - 0 1")));
+		} finally {
+			generator.shutdown();
+			File[] files = directory.listFiles();
+			if (files != null) for (File f : files) f.delete();
+			directory.delete();
+		}
+	}
+
+	@Test
+	public void index_foldsWhiteKingOntoQueensideLowerRanks() {
+		// the other two squares only go along with the mirroring, index does not check the position
+		int[] squares = {0, 9, 18};
+		int[] decoded = new int[3];
+		for (int king = 0; king < 64; king++) {
+			squares[0] = king;
+			long index = Tablebase.index(Board.BLACK, squares, 3, false);
+			assertEquals(Board.BLACK, Tablebase.decode(index, decoded, 3, false));
+			// files a-d, ranks 1-4: squares 32 and up, as a8 is square 0
+			assertTrue(king + " folds onto " + decoded[0], (decoded[0] & 7) < 4 && decoded[0] >= 32);
+			assertEquals(index, Tablebase.index(Board.BLACK, decoded, 3, false));
+		}
+		// a1 is already folded, h8 is mirrored both ways onto it
+		squares[0] = 56;
+		Tablebase.decode(Tablebase.index(Board.WHITE, squares, 3, false), decoded, 3, false);
+		assertEquals(56, decoded[0]);
+		squares[0] = 7;
+		Tablebase.decode(Tablebase.index(Board.WHITE, squares, 3, false), decoded, 3, false);
+		assertEquals(56, decoded[0]);
+	}
+}
@@ -0,0 +1,97 @@
+package chess.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import chess.Board;
+
+/**
+ * Benchmarks of the Board operations the game runs on every move.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BoardBenchmark {
+	/** Same layout the no argument constructor parses. */
+	private static final String START = "bR bN bB bQ bK bB bN bR\nbp bp bp bp bp bp bp bp\n\n\n\n\n"
+			+ "wp wp wp wp wp wp wp wp\nwR wN wB wQ wK wB wN wR";
+
+	/** Ply of the sample game the middlegame position is taken from. */
+	private static final int MIDDLEGAME_PLY = 20;
+
+	/** Sample game after MIDDLEGAME_PLY moves. */
+	private Board middlegame;
+
+	/** Sample game played to the end. */
+	private Board finished;
+
+	/** The next sample game move from the middlegame position. */
+	private int[] nextMove;
+
+	@Setup
+	public void setup() {
+		this.middlegame = SampleGame.play(MIDDLEGAME_PLY);
+		this.finished = SampleGame.play(SampleGame.MOVES.length);
+		this.nextMove = SampleGame.COORDS[MIDDLEGAME_PLY];
+	}
+
+	/**
+	 * One move through takeTurn, undone again so every invocation sees the same position.
+	 */
+	@Benchmark
+	public String takeTurn() {
+		int[] m = this.nextMove;
+		String result = this.middlegame.takeTurn(m[0], m[1], m[2], m[3]);
+		this.middlegame.undoMove();
+		return result;
+	}
+
+	@Benchmark
+	public boolean isInCheck() {
+		return this.middlegame.isInCheck();
+	}
+
+	@Benchmark
+	public boolean isInCheckSide() {
+		return this.middlegame.isInCheck("Black");
+	}
+
+	@Benchmark
+	public Board copy() {
+		return this.middlegame.copy();
+	}
+
+	@Benchmark
+	public Board parseBoard() {
+		return new Board(START);
+	}
+
+	@Benchmark
+	public String printGameAsMoves() {
+		return this.finished.printGameAsMoves();
+	}
+
+	/**
+	 * The whole sample game from a new board, as replaying a saved game does.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public String replaySampleGame() {
+		Board b = new Board();
+		String result = null;
+		for (int[] m : SampleGame.COORDS) {
+			result = b.takeTurn(m[0], m[1], m[2], m[3]);
+		}
+		return result;
+	}
+}
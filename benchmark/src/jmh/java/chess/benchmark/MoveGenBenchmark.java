@@ -0,0 +1,63 @@
+package chess.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import chess.Board;
+import chess.Piece;
+import chess.perft.Perft;
+
+/**
+ * Benchmarks of Piece.getPossibleMoves for each piece type, on a position where every type has moves.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MoveGenBenchmark {
+	/** Name of the piece type to generate moves for. */
+	@Param({"p", "N", "B", "R", "Q", "K"})
+	public String pieceName;
+
+	private Board board;
+
+	/** Rows and columns of every piece of the type, both colors. */
+	private int[][] squares;
+
+	@Setup
+	public void setup() {
+		this.board = Board.fromFen(Perft.REFERENCE_POSITIONS[1].getFen());
+		List<int[]> found = new ArrayList<>();
+		for (int r = 0; r < 8; r++) {
+			for (int c = 0; c < 8; c++) {
+				Piece p = this.board.getTile(r, c);
+				if (p != null && p.getName().equals(this.pieceName)) found.add(new int[]{r, c});
+			}
+		}
+		this.squares = found.toArray(new int[0][]);
+	}
+
+	/**
+	 * Moves of every piece of the type; divide by the number of pieces for the cost of one call.
+	 */
+	@Benchmark
+	public void getPossibleMoves(Blackhole bh) {
+		for (int[] sq : this.squares) {
+			Piece p = this.board.getTile(sq[0], sq[1]);
+			bh.consume(p.getPossibleMoves(this.board, sq[0], sq[1]));
+		}
+	}
+}
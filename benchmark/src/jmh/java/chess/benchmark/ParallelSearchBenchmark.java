@@ -0,0 +1,64 @@
+package chess.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import chess.Board;
+import chess.engine.ParallelSearch;
+import chess.perft.Perft;
+
+/**
+ * Time to depth of the Lazy SMP search on a fixed position, for measuring how it scales with threads.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelSearchBenchmark {
+	/** Depth every search runs to. */
+	private static final int DEPTH = 7;
+
+	@Param({"1", "2", "4", "8", "16"})
+	public int threads;
+
+	private ParallelSearch search;
+
+	private Board board;
+
+	@Setup
+	public void setup() {
+		this.search = new ParallelSearch(this.threads, 64);
+		this.board = Board.fromFen(Perft.REFERENCE_POSITIONS[1].getFen());
+	}
+
+	/**
+	 * Every search starts with an empty table, otherwise later invocations would only read back the
+	 * results of earlier ones.
+	 */
+	@Setup(Level.Invocation)
+	public void clearHash() {
+		this.search.clearHash();
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.search.shutdown();
+	}
+
+	@Benchmark
+	public int searchToDepth() {
+		return this.search.search(this.board, DEPTH, Long.MAX_VALUE, null);
+	}
+}
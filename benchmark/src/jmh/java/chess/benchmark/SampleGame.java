@@ -0,0 +1,48 @@
+package chess.benchmark;
+
+import chess.Board;
+
+/**
+ * The sample game from GameList.createSampleGame, as takeTurn arguments.
+ *
+ * @author James Beetham
+ * @author Samuel Jefferson
+ */
+final class SampleGame {
+	/** Moves of the sample game in history format. */
+	static final String[] MOVES = {
+		"e2 e4", "e7 e5", "g1 f3", "b8 c6", "f1 b5", "a7 a6", "b5 c6", "d7 c6", "e1 g1", "g8 e7",
+		"d2 d4", "e5 d4", "f3 d4", "f7 f6", "a2 a4", "e7 g6", "c2 c4", "f8 e7", "b2 b3", "e8 g8",
+		"d1 d3", "c6 c5", "d4 f5", "d8 d3", "b1 d2", "c8 f5", "e4 f5", "g6 f4", "d2 f3", "f4 e2",
+		"g1 h1", "e2 g3", "h2 g3", "d3 f1", "h1 h2", "e7 d6", "c1 b2", "f1 f2", "a1 d1", "d6 g3",
+		"h2 h1", "f2 b2", "d1 d8", "f8 d8", "f3 e5", "b2 c1",
+	};
+
+	/** Each move as {r, c, destR, destC}. */
+	static final int[][] COORDS = new int[MOVES.length][];
+
+	static {
+		for (int i = 0; i < MOVES.length; i++) {
+			String m = MOVES[i];
+			COORDS[i] = new int[]{'8' - m.charAt(1), m.charAt(0) - 'a', '8' - m.charAt(4), m.charAt(3) - 'a'};
+		}
+	}
+
+	private SampleGame() {
+	}
+
+	/**
+	 * Plays the start of the sample game on a new board.
+	 *
+	 * @param plies number of moves to play
+	 * @return the board after those moves
+	 */
+	static Board play(int plies) {
+		Board b = new Board();
+		for (int i = 0; i < plies; i++) {
+			int[] m = COORDS[i];
+			b.takeTurn(m[0], m[1], m[2], m[3]);
+		}
+		return b;
+	}
+}